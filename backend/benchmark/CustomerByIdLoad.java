@@ -0,0 +1,107 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Closed-loop load generator for GET /api/v1/customers/{id}.
+// usage: java CustomerByIdLoad.java <baseUrl> <concurrency> <warmUpSeconds> <durationSeconds> <maxId>
+public class CustomerByIdLoad {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        Duration warmUp = Duration.ofSeconds(Long.parseLong(args[2]));
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[3]));
+        int maxId = Integer.parseInt(args[4]);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        run(client, baseUrl, concurrency, warmUp, maxId);
+        Result result = run(client, baseUrl, concurrency, duration, maxId);
+
+        long[] latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s p50=%.2f ms p99=%.2f ms p999=%.2f ms max=%.2f ms%n",
+                latencies.length,
+                result.errors(),
+                latencies.length / seconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                percentile(latencies, 0.999),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, String baseUrl, int concurrency,
+                              Duration duration, int maxId) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> worker(client, baseUrl, deadline, maxId)));
+        }
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<Result> future : futures) {
+            Result result = future.get();
+            long[] merged = Arrays.copyOf(latencies, latencies.length + result.latenciesNanos().length);
+            System.arraycopy(result.latenciesNanos(), 0, merged, latencies.length, result.latenciesNanos().length);
+            latencies = merged;
+            errors += result.errors();
+        }
+        workers.shutdown();
+        return new Result(latencies, errors);
+    }
+
+    private static Result worker(HttpClient client, String baseUrl, long deadline, int maxId) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            int id = ThreadLocalRandom.current().nextInt(1, maxId + 1);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/customers/" + id))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 500) {
+                    errors++;
+                    continue;
+                }
+            } catch (Exception e) {
+                errors++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private record Result(long[] latenciesNanos, long errors) {
+    }
+}
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Compares throughput and latency of GET /api/v1/customers/{id} on the default
+# platform-thread Tomcat pool against the virtual-threads profile.
+# The customer cache is disabled so every request goes to Postgres.
+# Virtual threads need the app to run on Java 21 or newer.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8099}
+CONCURRENCY=${CONCURRENCY:-400}
+WARM_UP_SECONDS=${WARM_UP_SECONDS:-15}
+DURATION_SECONDS=${DURATION_SECONDS:-60}
+MAX_ID=${MAX_ID:-1000}
+MODES=${MODES:-"platform virtual-threads"}
+
+mvn -B -q -DskipTests package
+JAR=$(ls target/spring-boot-pp-*.jar | grep -v original | head -1)
+
+for mode in $MODES; do
+    profile_arg=""
+    if [ "$mode" = "virtual-threads" ]; then
+        profile_arg="--spring.profiles.active=virtual-threads"
+    fi
+    java -jar "$JAR" --server.port="$PORT" --customer.cache.enabled=false $profile_arg \
+        > "target/load-$mode.log" 2>&1 &
+    app_pid=$!
+    trap 'kill $app_pid 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        sleep 1
+    done
+
+    echo "== $mode (concurrency=$CONCURRENCY, duration=${DURATION_SECONDS}s)"
+    java benchmark/CustomerByIdLoad.java "http://localhost:$PORT" "$CONCURRENCY" \
+        "$WARM_UP_SECONDS" "$DURATION_SECONDS" "$MAX_ID"
+
+    kill "$app_pid"
+    wait "$app_pid" 2>/dev/null || true
+    trap - EXIT
+done
@@ -0,0 +1,87 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// A burst on one hot customer: every thread looks up the same id on the jdbc backend,
+// without the cache in front, so each lookup that is not coalesced is a query.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class CoalescingCustomerDAOBenchmark {
+
+    @Param({"false", "true"})
+    private boolean coalescing;
+
+    private CustomerDAO customerDAO;
+    private long hotId;
+
+    @Setup
+    public void setUp(CustomerBenchmarkContext context) {
+        CustomerDAO jdbc = new QueryCountingCustomerDAO(context.bean("jdbc", CustomerDAO.class));
+        customerDAO = coalescing ? new CoalescingCustomerDAO(jdbc, new SimpleMeterRegistry()) : jdbc;
+        hotId = context.randomId();
+    }
+
+    @Benchmark
+    public Optional<Customer> selectHotCustomerById(Lookups lookups) {
+        long queriesBefore = lookups.queries;
+        Optional<Customer> customer = customerDAO.selectCustomerById(hotId);
+        if (lookups.queries == queriesBefore) {
+            lookups.coalesced++;
+        }
+        return customer;
+    }
+
+    // reported next to the timing as "queries" and "coalesced" per iteration, summed over the threads
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lookups {
+
+        private static final ThreadLocal<Lookups> CURRENT = new ThreadLocal<>();
+
+        public long queries;
+        public long coalesced;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+            coalesced = 0;
+            CURRENT.set(this);
+        }
+    }
+
+    // the thread that reaches the database is the one that called, so it gets the query
+    private static final class QueryCountingCustomerDAO extends ForwardingCustomerDAO {
+
+        QueryCountingCustomerDAO(CustomerDAO delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Optional<Customer> selectCustomerById(Long customerId) {
+            Lookups.CURRENT.get().queries++;
+            return delegate.selectCustomerById(customerId);
+        }
+    }
+}
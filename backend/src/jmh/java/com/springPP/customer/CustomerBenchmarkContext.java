@@ -0,0 +1,104 @@
+package com.springPP.customer;
+
+import com.springPP.Main;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Boots the application without a web server against Postgres and seeds it.
+// Set JMH_JDBC_URL (plus JMH_JDBC_USERNAME / JMH_JDBC_PASSWORD) to reuse an
+// existing database instead of starting a Testcontainers one.
+@State(Scope.Benchmark)
+public class CustomerBenchmarkContext {
+
+    static final int CUSTOMERS = 10_000;
+    static final String EMAIL_PREFIX = "jmh-";
+
+    private PostgreSQLContainer<?> postgreSQLContainer;
+    private ConfigurableApplicationContext applicationContext;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        String url = System.getenv("JMH_JDBC_URL");
+        String username = System.getenv().getOrDefault("JMH_JDBC_USERNAME", "sqq");
+        String password = System.getenv().getOrDefault("JMH_JDBC_PASSWORD", "password");
+        if (url == null) {
+            postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("springPP-jmh")
+                    .withUsername("springPP")
+                    .withPassword("password");
+            postgreSQLContainer.start();
+            url = postgreSQLContainer.getJdbcUrl();
+            username = postgreSQLContainer.getUsername();
+            password = postgreSQLContainer.getPassword();
+        }
+        applicationContext = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + username,
+                        "spring.datasource.password=" + password,
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=warn"
+                )
+                .run();
+        seed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+        if (postgreSQLContainer != null) {
+            postgreSQLContainer.stop();
+        }
+    }
+
+    <T> T bean(String name, Class<T> type) {
+        return applicationContext.getBean(name, type);
+    }
+
+    <T> T bean(Class<T> type) {
+        return applicationContext.getBean(type);
+    }
+
+    long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    static String randomEmail() {
+        return EMAIL_PREFIX + ThreadLocalRandom.current().nextInt(CUSTOMERS) + "@jmh.test";
+    }
+
+    private void seed() {
+        JdbcTemplate jdbcTemplate = applicationContext.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM customer WHERE email LIKE ?", EMAIL_PREFIX + "%");
+
+        List<Customer> customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new Customer("Customer " + i, EMAIL_PREFIX + i + "@jmh.test", 18 + i % 80));
+        }
+        bean("jdbc", CustomerDAO.class).insertCustomers(customers);
+
+        List<Customer> seeded = jdbcTemplate.query(
+                "SELECT id, name, email, age, version FROM customer WHERE email LIKE ? ORDER BY id",
+                bean(CustomerRowMapper.class), EMAIL_PREFIX + "%");
+        ids = seeded.stream().mapToLong(Customer::getId).toArray();
+        // the list backend keeps its rows in memory, give it the same ids
+        bean("list", CustomerDAO.class).insertCustomers(seeded);
+    }
+}
@@ -0,0 +1,116 @@
+package com.springPP.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerDAOBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"jdbc", "jpa", "list"})
+    private String backend;
+
+    private CustomerBenchmarkContext context;
+    private CustomerDAO customerDAO;
+
+    @Setup
+    public void setUp(CustomerBenchmarkContext context) {
+        this.context = context;
+        this.customerDAO = context.bean(backend, CustomerDAO.class);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDAO.selectCustomerById(context.randomId());
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomersAfterId() {
+        return customerDAO.selectCustomersAfterId(context.randomId(), 20);
+    }
+
+    @Benchmark
+    public boolean existsPersonWithEmail() {
+        return customerDAO.existsPersonWithEmail(CustomerBenchmarkContext.randomEmail());
+    }
+
+    // one op inserts BATCH_SIZE rows; the jpa backend draws their ids from pooled sequence blocks
+    @Benchmark
+    public void insertCustomers() {
+        String batch = UUID.randomUUID().toString();
+        customerDAO.insertCustomers(IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new Customer("Batch", "batch-" + batch + "-" + i + "@jmh.test", 30))
+                .toList());
+    }
+
+    // through the DAO, so the list backend's map shrinks back as well and later iterations
+    // do not measure a bigger and bigger heap
+    @TearDown(Level.Iteration)
+    public void deleteInsertedBatches() {
+        List<Long> inserted = new ArrayList<>();
+        customerDAO.forEachCustomer(customer -> {
+            if (customer.getEmail().startsWith("batch-") && customer.getEmail().endsWith("@jmh.test")) {
+                inserted.add(customer.getId());
+            }
+        });
+        customerDAO.deleteCustomersByIds(inserted);
+    }
+
+    // one op edits BATCH_SIZE random customers, one round trip against BATCH_SIZE of them
+    @Benchmark
+    public CustomerBulkUpdateResult updateCustomersIfChanged() {
+        return customerDAO.updateCustomersIfChanged(randomAgeChanges());
+    }
+
+    @Benchmark
+    public int updateCustomerIfChangedOneByOne() {
+        int updated = 0;
+        for (Customer changes : randomAgeChanges()) {
+            if (customerDAO.updateCustomerIfChanged(changes).isPresent()) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private List<Customer> randomAgeChanges() {
+        return IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new Customer(context.randomId(), null, null, 18 + i % 80))
+                .toList();
+    }
+
+    @Benchmark
+    public Optional<Customer> insertAndDeleteCustomer() {
+        Customer customer = new Customer(
+                "Transient",
+                "transient-" + UUID.randomUUID() + "@jmh.test",
+                30
+        );
+        Customer inserted = customerDAO.insertCustomerIfEmailAbsent(customer).orElseThrow();
+        return customerDAO.deleteCustomerByIdReturning(inserted.getId());
+    }
+}
@@ -0,0 +1,97 @@
+package com.springPP.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson's reflective bean codecs against Blackbird and the hand-written codecs in
+// CustomerJsonComponent. Run with -prof gc to see the allocation per operation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerJsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"reflective", "blackbird", "handwritten", "handwritten+blackbird"})
+    private String codec;
+
+    private ObjectWriter pageWriter;
+    private ObjectReader registrationReader;
+    private ObjectReader editReader;
+    private CustomerPage page;
+    private byte[] registration;
+    private byte[] edit;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        List<com.fasterxml.jackson.databind.Module> modules = new ArrayList<>();
+        if (codec.startsWith("handwritten")) {
+            modules.add(new SimpleModule()
+                    .addSerializer(Customer.class, new CustomerJsonComponent.Serializer())
+                    .addDeserializer(CustomerRegistrationRequest.class,
+                            new CustomerJsonComponent.RegistrationRequestDeserializer())
+                    .addDeserializer(CustomerEditRequest.class, new CustomerJsonComponent.EditRequestDeserializer()));
+        }
+        if (codec.endsWith("blackbird")) {
+            modules.add(new BlackbirdModule());
+        }
+        ObjectMapper objectMapper = builder.modulesToInstall(modules.toArray(com.fasterxml.jackson.databind.Module[]::new))
+                .build();
+
+        List<Customer> customers = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            customers.add(new Customer(1_000_000L + i, "Customer " + i, "customer-" + i + "@jmh.test", 18 + i % 80, 0L));
+        }
+        page = new CustomerPage(customers, "MTAwMDA5OQ");
+        pageWriter = objectMapper.writerFor(CustomerPage.class);
+        registrationReader = objectMapper.readerFor(CustomerRegistrationRequest.class);
+        editReader = objectMapper.readerFor(CustomerEditRequest.class);
+        registration = "{\"name\":\"Alex Smith\",\"email\":\"alex.smith@jmh.test\",\"age\":31}"
+                .getBytes(StandardCharsets.UTF_8);
+        edit = "{\"name\":null,\"email\":\"alex.smith@jmh.test\",\"age\":32}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int writePage() throws IOException {
+        buffer.reset();
+        pageWriter.writeValue(buffer, page);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public CustomerRegistrationRequest readRegistrationRequest() throws IOException {
+        return registrationReader.readValue(registration);
+    }
+
+    @Benchmark
+    public CustomerEditRequest readEditRequest() throws IOException {
+        return editReader.readValue(edit);
+    }
+}
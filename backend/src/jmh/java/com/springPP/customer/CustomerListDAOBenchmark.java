@@ -0,0 +1,67 @@
+package com.springPP.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Contended in-memory access from every core; no Spring context or database needed.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CustomerListDAOBenchmark {
+
+    private static final int CUSTOMERS = 100_000;
+
+    private CustomerListDataAccessService customerDAO;
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        customerDAO = new CustomerListDataAccessService();
+        firstId = customerDAO.selectAllCustomers().size() + 1;
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerDAO.insertCustomer(new Customer("Customer " + i, "list-" + i + "@jmh.test", 18 + i % 80));
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDAO.selectCustomerById(randomId());
+    }
+
+    @Benchmark
+    public boolean existsPersonWithEmail() {
+        return customerDAO.existsPersonWithEmail("list-" + ThreadLocalRandom.current().nextInt(CUSTOMERS) + "@jmh.test");
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithId() {
+        return customerDAO.existsCustomerWithId(randomId());
+    }
+
+    @Benchmark
+    public Optional<Customer> updateCustomerIfChanged() {
+        return customerDAO.updateCustomerIfChanged(
+                new Customer(randomId(), null, null, ThreadLocalRandom.current().nextInt(18, 99)));
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+    }
+}
@@ -0,0 +1,85 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Heap-resident list backend against the off-heap store over the same rows.
+// Setup prints the retained heap of each; run with -prof gc to compare GC work.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CustomerOffHeapBenchmark {
+
+    private static final int CUSTOMERS = 1_000_000;
+
+    @Param({"list", "offheap"})
+    private String backend;
+
+    private CustomerDAO customerDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeapAfterGc();
+        CustomerListDataAccessService list = new CustomerListDataAccessService();
+        list.deleteCustomerById(1L);
+        list.deleteCustomerById(2L);
+        for (int i = 1; i <= CUSTOMERS; i++) {
+            list.insertCustomer(new Customer((long) i, "Customer " + i, "offheap-" + i + "@jmh.test", 18 + i % 80));
+        }
+        if (backend.equals("list")) {
+            customerDAO = list;
+        } else {
+            customerDAO = new CustomerOffHeapDataAccessService(list, false, null, Duration.ZERO,
+                    new SimpleMeterRegistry());
+            // the off-heap backend keeps its source for reload(), so empty it to measure the store alone
+            for (int i = 1; i <= CUSTOMERS; i++) {
+                list.deleteCustomerById((long) i);
+            }
+        }
+        System.out.printf("%n%s backend retains %d MB of heap for %d customers%n",
+                backend, (usedHeapAfterGc() - before) >> 20, CUSTOMERS);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDAO.selectCustomerById(ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1));
+    }
+
+    @Benchmark
+    public boolean existsPersonWithEmail() {
+        return customerDAO.existsPersonWithEmail(
+                "offheap-" + ThreadLocalRandom.current().nextInt(1, CUSTOMERS + 1) + "@jmh.test");
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithId() {
+        return customerDAO.existsCustomerWithId(ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,81 @@
+package com.springPP.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.javafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// CPU to encode one full page of GET /api/v1/customers per wire format, with and without
+// the gzip step Tomcat applies when the client accepts it. Bytes on the wire per page are
+// printed once per trial, since JMH has no per-operation size metric.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerPageEncodingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private CustomerPage page;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        Faker faker = new Faker(Locale.ENGLISH, new Random(42));
+        List<Customer> customers = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            customers.add(new Customer(1_000_000L + i, faker.name().fullName(),
+                    faker.internet().safeEmailAddress(), faker.number().numberBetween(18, 99)));
+        }
+        page = new CustomerPage(customers, "MTAwMDA5OQ");
+        System.out.printf("%n%s gzip=%s: %d bytes per page of %d%n", format, gzip, encode().length, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        buffer.reset();
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(buffer)) {
+                objectMapper.writeValue(out, page);
+            }
+        } else {
+            objectMapper.writeValue(buffer, page);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.springPP.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Maps rows of a real PgJDBC result set that is fully buffered in memory,
+// so only column lookup and value decoding are measured, not the network.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerRowMapperBenchmark {
+
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private Connection connection;
+    private ResultSet resultSet;
+
+    @Setup
+    public void setUp(CustomerBenchmarkContext context) throws SQLException {
+        connection = context.bean(DataSource.class).getConnection();
+        PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, name, email, age, version FROM customer WHERE email LIKE ?",
+                ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setString(1, CustomerBenchmarkContext.EMAIL_PREFIX + "%");
+        resultSet = statement.executeQuery();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Customer mapRow() throws SQLException {
+        if (!resultSet.next()) {
+            resultSet.beforeFirst();
+            resultSet.next();
+        }
+        return customerRowMapper.mapRow(resultSet, resultSet.getRow());
+    }
+}
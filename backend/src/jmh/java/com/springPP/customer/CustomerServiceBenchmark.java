@@ -0,0 +1,67 @@
+package com.springPP.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.springPP.exception.DuplicateResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerServiceBenchmark {
+
+    private CustomerBenchmarkContext context;
+    private CustomerService customerService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp(CustomerBenchmarkContext context) {
+        this.context = context;
+        this.customerService = context.bean(CustomerService.class);
+        this.jdbcTemplate = context.bean(JdbcTemplate.class);
+    }
+
+    @Benchmark
+    public Customer getCustomer() {
+        return customerService.getCustomer(context.randomId());
+    }
+
+    @Benchmark
+    public CustomerPage getCustomers() {
+        return customerService.getCustomers(null, 20);
+    }
+
+    // the cleanup DELETE is part of the measurement so the table does not grow
+    @Benchmark
+    public int addCustomer() {
+        String email = "service-" + UUID.randomUUID() + "@jmh.test";
+        customerService.addCustomer(new CustomerRegistrationRequest("Transient", email, 30));
+        return jdbcTemplate.update("DELETE FROM customer WHERE email = ?", email);
+    }
+
+    @Benchmark
+    public Exception addCustomerWithTakenEmail() {
+        try {
+            customerService.addCustomer(new CustomerRegistrationRequest(
+                    "Transient", CustomerBenchmarkContext.randomEmail(), 30));
+            throw new IllegalStateException("email should have been taken");
+        } catch (DuplicateResourceException e) {
+            return e;
+        }
+    }
+}
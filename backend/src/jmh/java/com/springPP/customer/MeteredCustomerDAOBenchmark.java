@@ -0,0 +1,59 @@
+package com.springPP.customer;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the DAO timers on the fastest backend, where it is most visible.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MeteredCustomerDAOBenchmark {
+
+    private static final int CUSTOMERS = 100_000;
+
+    @Param({"false", "true"})
+    private boolean metered;
+
+    private CustomerDAO customerDAO;
+
+    @Setup
+    public void setUp() {
+        CustomerListDataAccessService list = new CustomerListDataAccessService();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            list.insertCustomer(new Customer("Customer " + i, "metered-" + i + "@jmh.test", 18 + i % 80));
+        }
+        customerDAO = metered
+                ? MeteredCustomerDAO.wrap(list, "list", new PrometheusMeterRegistry(PrometheusConfig.DEFAULT))
+                : list;
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDAO.selectCustomerById(ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1));
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithId() {
+        return customerDAO.existsCustomerWithId(ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1));
+    }
+}
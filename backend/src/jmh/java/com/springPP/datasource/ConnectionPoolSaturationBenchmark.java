@@ -0,0 +1,127 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 16 callers share pools of different sizes. With queryMillis = 0 the database is CPU bound and a
+// pool past cores * 2 + 1 only moves the queue from Hikari into Postgres; with a query that waits
+// (pg_sleep standing in for I/O) throughput grows with the pool until callers stop queueing.
+// The acquire-time percentiles are printed after each trial, from the same Hikari meters
+// the application exports as hikaricp.connections.acquire.
+// Set JMH_JDBC_URL (plus JMH_JDBC_USERNAME / JMH_JDBC_PASSWORD) to reuse an existing database.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ConnectionPoolSaturationBenchmark {
+
+    @Param({"2", "4", "8", "16"})
+    private int poolSize;
+
+    @Param({"0", "2"})
+    private int queryMillis;
+
+    private PostgreSQLContainer<?> postgreSQLContainer;
+    private SimpleMeterRegistry meterRegistry;
+    private HikariDataSource dataSource;
+
+    @Setup
+    public void setUp() {
+        String url = System.getenv("JMH_JDBC_URL");
+        String username = System.getenv().getOrDefault("JMH_JDBC_USERNAME", "sqq");
+        String password = System.getenv().getOrDefault("JMH_JDBC_PASSWORD", "password");
+        if (url == null) {
+            postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("springPP-jmh")
+                    .withUsername("springPP")
+                    .withPassword("password");
+            postgreSQLContainer.start();
+            url = postgreSQLContainer.getJdbcUrl();
+            username = postgreSQLContainer.getUsername();
+            password = postgreSQLContainer.getPassword();
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id,
+                                                         DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99)
+                        .build()
+                        .merge(config);
+            }
+        });
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(poolSize);
+        dataSource.setConnectionTimeout(30_000);
+        dataSource.setPoolName("saturation");
+        dataSource.addDataSourceProperty("prepareThreshold", "2");
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile percentile : acquire.takeSnapshot().percentileValues()) {
+            percentiles.append(" p%.0f=%.2fms".formatted(
+                    percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.printf("%npool=%d queryMillis=%d acquires=%d acquire mean=%.2fms%s max=%.2fms%n",
+                poolSize, queryMillis, acquire.count(), acquire.mean(TimeUnit.MILLISECONDS), percentiles,
+                acquire.max(TimeUnit.MILLISECONDS));
+        dataSource.close();
+        if (postgreSQLContainer != null) {
+            postgreSQLContainer.stop();
+        }
+    }
+
+    @Benchmark
+    public long lookup() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT ?::bigint, pg_sleep(? / 1000.0)")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextLong());
+            statement.setInt(2, queryMillis);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.springPP;
 
 import com.springPP.customer.Customer;
 import com.springPP.customer.CustomerRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import com.github.javafaker.Faker;
 
 import java.util.Random;
@@ -18,8 +23,10 @@ public class Main {
     }
 
     @Bean
-    CommandLineRunner runner (CustomerRepository customerRepository) {
-        return args -> {
+    CommandLineRunner runner (CustomerRepository customerRepository,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                              ObjectProvider<TaskExecutor> taskExecutor) {
+        return args -> taskExecutor.getIfAvailable(SyncTaskExecutor::new).execute(() -> {
             Faker faker = new Faker();
             Random random = new Random();
             var name = faker.name();
@@ -31,6 +38,6 @@ public class Main {
                     random.nextInt(16, 99)
             );
             customerRepository.save(customer);
-        };
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.springPP.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.springPP.datasource.ReadWriteRoutingDataSource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+class CachingCustomerDAO extends ForwardingCustomerDAO {
+
+    private final Cache<Long, Customer> cache;
+
+    CachingCustomerDAO(CustomerDAO delegate, Cache<Long, Customer> cache) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    // callers mutate the customers they get back, so only copies leave or enter the cache.
+    // Misses load from the primary: an entry outlives the read-your-writes window, and a lagging
+    // replica could refill it with the row a write has just invalidated
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        Customer cached = cache.get(customerId, id -> ReadWriteRoutingDataSource.onPrimary(
+                () -> delegate.selectCustomerById(id))
+                .map(CachingCustomerDAO::copyOf)
+                .orElse(null));
+        return Optional.ofNullable(cached).map(CachingCustomerDAO::copyOf);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        if (customer.getId() != null) {
+            cache.invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        Optional<Customer> inserted = delegate.insertCustomerIfEmailAbsent(customer);
+        inserted.ifPresent(c -> cache.invalidate(c.getId()));
+        return inserted;
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        delegate.insertCustomers(customers);
+        customers.stream()
+                .map(Customer::getId)
+                .filter(Objects::nonNull)
+                .forEach(cache::invalidate);
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        delegate.deleteCustomerById(customerId);
+        cache.invalidate(customerId);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        Optional<Customer> deleted = delegate.deleteCustomerByIdReturning(customerId);
+        cache.invalidate(customerId);
+        return deleted;
+    }
+
+    @Override
+    public void updateCustomer(Customer updatedCustomer) {
+        delegate.updateCustomer(updatedCustomer);
+        cache.invalidate(updatedCustomer.getId());
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        Optional<Customer> updated = delegate.updateCustomerIfChanged(changes);
+        cache.invalidate(changes.getId());
+        return updated;
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        List<Long> deleted = delegate.deleteCustomersByIds(customerIds);
+        cache.invalidateAll(customerIds);
+        return deleted;
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        CustomerBulkUpdateResult result = delegate.updateCustomersIfChanged(changes);
+        cache.invalidateAll(result.updated());
+        return result;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(),
+                customer.getVersion());
+    }
+}
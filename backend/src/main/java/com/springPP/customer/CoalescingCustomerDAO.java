@@ -0,0 +1,171 @@
+package com.springPP.customer;
+
+import com.springPP.datasource.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Concurrent lookups of the same id share one delegate call. A lookup is only joined while no
+// write has finished since it started, so a caller never gets a row read before a write it has
+// already seen return. Callers pinned to the primary only join lookups that read from it, and
+// callers inside a transaction, which may depend on their own uncommitted writes, always go to
+// the delegate.
+class CoalescingCustomerDAO extends ForwardingCustomerDAO {
+
+    private final ConcurrentHashMap<Long, Lookup> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Lookup> inFlightOnPrimary = new ConcurrentHashMap<>();
+    private final AtomicLong completedWrites = new AtomicLong();
+    private final Counter executedLookups;
+    private final Counter coalescedLookups;
+    private final Counter bypassedLookups;
+
+    CoalescingCustomerDAO(CustomerDAO delegate, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.executedLookups = meterRegistry.counter("customer.dao.lookups", "result", "executed");
+        this.coalescedLookups = meterRegistry.counter("customer.dao.lookups", "result", "coalesced");
+        this.bypassedLookups = meterRegistry.counter("customer.dao.lookups", "result", "bypassed");
+        Gauge.builder("customer.dao.lookups.in.flight", this,
+                        dao -> dao.inFlight.size() + dao.inFlightOnPrimary.size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            bypassedLookups.increment();
+            return delegate.selectCustomerById(customerId);
+        }
+        ConcurrentHashMap<Long, Lookup> lookups = ReadWriteRoutingDataSource.isPinnedToPrimary()
+                ? inFlightOnPrimary
+                : inFlight;
+        Lookup own = new Lookup(completedWrites.get(), new CompletableFuture<>());
+        Lookup running = lookups.compute(customerId, (id, existing) ->
+                existing != null && existing.writesBefore() == own.writesBefore() ? existing : own);
+        if (running != own) {
+            coalescedLookups.increment();
+            return await(running).map(CoalescingCustomerDAO::copyOf);
+        }
+        executedLookups.increment();
+        Optional<Customer> customer;
+        try {
+            customer = delegate.selectCustomerById(customerId);
+        } catch (RuntimeException | Error e) {
+            lookups.remove(customerId, own);
+            own.result().completeExceptionally(e);
+            throw e;
+        }
+        // removed before it completes, so a finished lookup is never joined and turned into a cache
+        lookups.remove(customerId, own);
+        own.result().complete(customer);
+        // the shared instance stays here, callers mutate the customers they get back
+        return customer.map(CoalescingCustomerDAO::copyOf);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        write(() -> {
+            delegate.insertCustomer(customer);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        return write(() -> delegate.insertCustomerIfEmailAbsent(customer));
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        write(() -> {
+            delegate.insertCustomers(customers);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        write(() -> {
+            delegate.deleteCustomerById(customerId);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        return write(() -> delegate.deleteCustomerByIdReturning(customerId));
+    }
+
+    @Override
+    public void updateCustomer(Customer updatedCustomer) {
+        write(() -> {
+            delegate.updateCustomer(updatedCustomer);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        return write(() -> delegate.updateCustomerIfChanged(changes));
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        return write(() -> delegate.deleteCustomersByIds(customerIds));
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        return write(() -> delegate.updateCustomersIfChanged(changes));
+    }
+
+    // counted even when the write fails, it may have reached the database before failing;
+    // inside a transaction the row only becomes visible on commit, so that is counted too
+    private <T> T write(Supplier<T> write) {
+        try {
+            return write.get();
+        } finally {
+            completedWrites.incrementAndGet();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        completedWrites.incrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    private static Optional<Customer> await(Lookup lookup) {
+        try {
+            return lookup.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(),
+                customer.getVersion());
+    }
+
+    private record Lookup(long writesBefore, CompletableFuture<Optional<Customer>> result) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.springPP.customer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.util.Objects;
@@ -17,16 +18,18 @@ import java.util.Objects;
 public class Customer {
 
     @Id
+    // one nextval per 50 inserts; the pooled-lo optimizer (application.yml) hands out
+    // [value, value + 49], which stays clear of ids already taken by column defaults
     @SequenceGenerator(
             name = "customer_id_seq",
             sequenceName = "customer_id_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
             generator = "customer_id_seq"
     )
-    private Integer id;
+    private Long id;
     @Column(nullable = false)
     private String name;
     @Column(
@@ -35,27 +38,37 @@ public class Customer {
     private String email;
     @Column(nullable = false)
     private Integer age;
+    // bumped by every write; carried to clients as the ETag instead of in the body
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version;
 
     public Customer() {}
 
-    public Customer(Integer id, String name, String email, Integer age) {
+    public Customer(Long id, String name, String email, Integer age) {
         this.id = id;
         this.name = name;
         this.email = email;
         this.age = age;
     }
 
+    public Customer(Long id, String name, String email, Integer age, Long version) {
+        this(id, name, email, age);
+        this.version = version;
+    }
+
     public Customer(String name, String email, Integer age) {
         this.name = name;
         this.email = email;
         this.age = age;
     }
 
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 
-    public void setId(Integer id) {
+    public void setId(Long id) {
         this.id = id;
     }
 
@@ -83,6 +96,14 @@ public class Customer {
         this.age = age;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -102,6 +123,7 @@ public class Customer {
                 ", name='" + name + '\'' +
                 ", email='" + email + '\'' +
                 ", age=" + age +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,10 @@
+package com.springPP.customer;
+
+public record CustomerBatchItemResult(int index, String email, Status status, String message) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+}
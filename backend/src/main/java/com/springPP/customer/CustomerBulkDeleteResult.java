@@ -0,0 +1,6 @@
+package com.springPP.customer;
+
+import java.util.List;
+
+public record CustomerBulkDeleteResult(List<Long> deleted, List<Long> notFound) {
+}
@@ -0,0 +1,4 @@
+package com.springPP.customer;
+
+public record CustomerBulkEditRequest(Long id, String name, String email, Integer age) {
+}
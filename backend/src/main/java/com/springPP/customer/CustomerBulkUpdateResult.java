@@ -0,0 +1,20 @@
+package com.springPP.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public record CustomerBulkUpdateResult(List<Long> updated, List<Long> unchanged, List<Long> notFound) {
+
+    // updatedById holds the batch ids that exist, mapped to whether their row was written
+    static CustomerBulkUpdateResult of(List<Customer> changes, Map<Long, Boolean> updatedById) {
+        List<Long> updated = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Customer customer : changes) {
+            Boolean written = updatedById.get(customer.getId());
+            (written == null ? notFound : written ? updated : unchanged).add(customer.getId());
+        }
+        return new CustomerBulkUpdateResult(updated, unchanged, notFound);
+    }
+}
@@ -0,0 +1,21 @@
+package com.springPP.customer;
+
+import java.util.List;
+
+// Validator for a set of rows that needs no per-row hashing: every write bumps a version and
+// ids are never reused, so an update moves the version sum and a delete or insert moves the id
+// sum. The max id alone is not enough, pooled-lo blocks hand out ids below ones already taken.
+public record CustomerCollectionVersion(long count, long maxId, long idSum, long versionSum) {
+
+    static CustomerCollectionVersion of(List<Customer> customers) {
+        long maxId = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (Customer customer : customers) {
+            maxId = Math.max(maxId, customer.getId());
+            idSum += customer.getId();
+            versionSum += customer.getVersion();
+        }
+        return new CustomerCollectionVersion(customers.size(), maxId, idSum, versionSum);
+    }
+}
@@ -1,27 +1,104 @@
 package com.springPP.customer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.springPP.exception.PreconditionFailedException;
+import com.springPP.exception.RequestValidationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.objectMapper = objectMapper;
     }
 
+    // a ResponseEntity with an ETag lets Spring answer a matching If-None-Match with 304
+    // before the body is written, so the validators are computed from what the query returned
     @GetMapping
-    public List<Customer> getCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<CustomerPage> getCustomers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${customer.page.default-size}") int size,
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "namePrefix", required = false) String namePrefix,
+            @RequestParam(value = "emailPrefix", required = false) String emailPrefix,
+            @RequestParam(value = "sort", defaultValue = "id") String sort) {
+        CustomerPage page = customerService.getCustomers(cursor, size,
+                new CustomerFilter(minAge, maxAge, namePrefix, emailPrefix), sort);
+        // weak for the same reason as the export's tag
+        return ResponseEntity.ok()
+                .eTag("W/\"" + page.fingerprint() + "\"")
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(page);
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers(WebRequest request) {
+        // taken before streaming starts, so a concurrent write can only make the tag look older
+        // than the body; the streaming handler skips conditional checks, hence the explicit one
+        String eTag = eTag(customerService.getCollectionVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        ObjectWriter writer = objectMapper.writerFor(Customer.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                // lines are separated explicitly, not by the default space between root values
+                generator.setRootValueSeparator(null);
+                customerService.exportCustomers(customer -> {
+                    try {
+                        writer.writeValue(generator, customer);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("search")
+    public ResponseEntity<List<Customer>> searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "${customer.search.default-limit}") int limit) {
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(customerService.searchCustomers(query, limit));
     }
 
     @GetMapping("{customerId}")
-    public Customer getCustomer(@PathVariable("customerId") Integer customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<Customer> getCustomer(@PathVariable("customerId") Long customerId) {
+        Customer customer = customerService.getCustomer(customerId);
+        return ResponseEntity.ok()
+                .eTag(eTag(customer))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(customer);
     }
 
     @PostMapping
@@ -29,15 +106,75 @@ public class CustomerController {
         customerService.addCustomer(request);
     }
 
+    @PostMapping("batch")
+    public List<CustomerBatchItemResult> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    public CustomerImportResult importCustomersCsv(InputStream body) {
+        return customerService.importCustomersCsv(body);
+    }
+
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CustomerImportResult importCustomersNdjson(InputStream body) {
+        return customerService.importCustomersNdjson(body);
+    }
+
     @DeleteMapping("{customerId}")
-    public void deleteCustomerById(@PathVariable("customerId") Integer customerId) {
+    public void deleteCustomerById(@PathVariable("customerId") Long customerId) {
         customerService.deleteCustomerById(customerId);
     }
 
+    // ids=1,2,3; the server's URL limit caps a batch at roughly a thousand ids
+    @DeleteMapping
+    public CustomerBulkDeleteResult deleteCustomers(@RequestParam("ids") List<Long> customerIds) {
+        return customerService.deleteCustomers(customerIds);
+    }
+
+    @PatchMapping
+    public CustomerBulkUpdateResult updateCustomers(@RequestBody List<CustomerBulkEditRequest> requests) {
+        return customerService.updateCustomers(requests);
+    }
+
     @PutMapping("{customerId}")
-    public void updateCustomer(
-            @PathVariable("customerId") Integer customerId,
+    public ResponseEntity<Void> updateCustomer(
+            @PathVariable("customerId") Long customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody CustomerEditRequest request) {
-        customerService.updateCustomer(customerId, request);
+        Customer updated = customerService.updateCustomer(customerId, request, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updated)).build();
+    }
+
+    // weak: JSON, Smile and CBOR bodies of one version share the tag, which a strong tag must not
+    private static String eTag(Customer customer) {
+        return "W/\"" + customer.getVersion() + "\"";
+    }
+
+    // weak: the validator is not tied to the bytes, and Tomcat will not gzip a response with a strong ETag
+    private static String eTag(CustomerCollectionVersion version) {
+        return "W/\"%d-%d-%d-%d\"".formatted(version.count(), version.maxId(), version.idSum(), version.versionSum());
+    }
+
+    // no header or "*" updates unconditionally; otherwise the tag must name a version. The tags this
+    // controller hands out are weak, and the version alone identifies the stored state, so weak and
+    // strong forms of it both match instead of If-Match's strong comparison failing every weak one
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> eTags = ETag.parse(ifMatch);
+        if (eTags.size() != 1) {
+            throw new RequestValidationException("If-Match must carry a single entity tag");
+        }
+        ETag eTag = eTags.get(0);
+        if (eTag.isWildcard()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(eTag.tag());
+        } catch (NumberFormatException ignored) {
+        }
+        throw new PreconditionFailedException("If-Match %s does not match the customer".formatted(ifMatch));
     }
 }
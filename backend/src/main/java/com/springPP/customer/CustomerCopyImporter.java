@@ -0,0 +1,94 @@
+package com.springPP.customer;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@Repository
+public class CustomerCopyImporter {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // rows that conflict on the email unique constraint or miss a required column are skipped
+    private static final String MERGE_CSV = """
+            INSERT INTO customer(name, email, age)
+            SELECT name, email, age FROM customer_import
+            WHERE name IS NOT NULL AND email IS NOT NULL AND age IS NOT NULL
+            ON CONFLICT (email) DO NOTHING
+            """;
+
+    private static final String MERGE_NDJSON = """
+            INSERT INTO customer(name, email, age)
+            SELECT doc ->> 'name', doc ->> 'email', (doc ->> 'age')::int FROM customer_import
+            WHERE doc ->> 'name' IS NOT NULL AND doc ->> 'email' IS NOT NULL AND doc ->> 'age' IS NOT NULL
+            ON CONFLICT (email) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerCopyImporter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public CustomerImportResult importCsv(InputStream csv) {
+        return copyAndMerge(
+                "CREATE TEMP TABLE customer_import(name TEXT, email TEXT, age INT) ON COMMIT DROP",
+                "COPY customer_import(name, email, age) FROM STDIN WITH (FORMAT csv, HEADER true)",
+                MERGE_CSV,
+                csv
+        );
+    }
+
+    // each line is loaded as a single jsonb value: the control-character quote and
+    // delimiter never occur in valid JSON, so the csv parser passes lines through untouched
+    public CustomerImportResult importNdjson(InputStream ndjson) {
+        return copyAndMerge(
+                "CREATE TEMP TABLE customer_import(doc JSONB) ON COMMIT DROP",
+                "COPY customer_import(doc) FROM STDIN WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')",
+                MERGE_NDJSON,
+                ndjson
+        );
+    }
+
+    // the staging table lives only as long as the transaction, so a failed COPY or merge
+    // rolls it back with everything else instead of leaving it on the pooled connection
+    private CustomerImportResult copyAndMerge(String createStaging, String copy, String merge, InputStream data) {
+        return jdbcTemplate.execute((ConnectionCallback<CustomerImportResult>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try (Statement statement = con.createStatement()) {
+                statement.execute(createStaging);
+                long received = con.unwrap(PGConnection.class)
+                        .getCopyAPI()
+                        .copyIn(copy, data, COPY_BUFFER_SIZE);
+                long inserted = statement.executeUpdate(merge);
+                con.commit();
+                return new CustomerImportResult(received, inserted, received - inserted);
+            } catch (IOException e) {
+                rollback(con, e);
+                throw new UncheckedIOException(e);
+            } catch (SQLException | RuntimeException e) {
+                rollback(con, e);
+                throw e;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static void rollback(Connection con, Exception cause) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.springPP.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CustomerDAO {
     List<Customer> selectAllCustomers();
-    Optional<Customer> selectCustomerById(Integer customerId);
+    List<Customer> selectCustomersAfterId(Long customerId, int limit);
+    // the next rows in sort order that match the filter, after the keyset position of the given
+    // customer (its id and sort field), or from the start when it is null
+    List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit);
+    void forEachCustomer(Consumer<Customer> action);
+    Optional<Customer> selectCustomerById(Long customerId);
     void insertCustomer(Customer customer);
-    void deleteCustomerById(Integer customerId);
+    Optional<Customer> insertCustomerIfEmailAbsent(Customer customer);
+    void insertCustomers(List<Customer> customers);
+    void deleteCustomerById(Long customerId);
+    Optional<Customer> deleteCustomerByIdReturning(Long customerId);
     void updateCustomer(Customer updatedCustomer);
+    Optional<Customer> updateCustomerIfChanged(Customer changes);
+    // one statement for the whole batch; returns the ids that were actually deleted
+    List<Long> deleteCustomersByIds(Collection<Long> customerIds);
+    // updateCustomerIfChanged for a batch of distinct ids, without versions, in one statement;
+    // every id lands in exactly one of the result lists, in batch order
+    CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes);
     boolean existsPersonWithEmail(String email);
-    boolean existsCustomerWithId(Integer customerId);
+    Set<String> selectExistingEmails(Collection<String> emails);
+    boolean existsCustomerWithId(Long customerId);
+    CustomerCollectionVersion selectCollectionVersion();
 }
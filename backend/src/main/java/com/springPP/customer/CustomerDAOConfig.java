@@ -0,0 +1,96 @@
+package com.springPP.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.time.Duration;
+
+@Configuration
+public class CustomerDAOConfig {
+
+    @Bean
+    @Primary
+    public CustomerDAO customerDAO(@Value("${customer.dao.backend}") String backend,
+                                   BeanFactory beanFactory,
+                                   ObjectProvider<CustomerEmailIndex> customerEmailIndex,
+                                   @Value("${customer.cache.enabled}") boolean cacheEnabled,
+                                   @Value("${customer.cache.maximum-size}") long cacheMaximumSize,
+                                   @Value("${customer.cache.expire-after-write}") Duration cacheExpireAfterWrite,
+                                   @Value("${customer.dao.metrics.enabled}") boolean metricsEnabled,
+                                   @Value("${customer.dao.coalescing.enabled}") boolean coalescingEnabled,
+                                   MeterRegistry meterRegistry) {
+        CustomerDAO dao = beanFactory.getBean(backend, CustomerDAO.class);
+        if (metricsEnabled) {
+            // innermost, so the timings are the backend's own and cache hits never reach it
+            dao = MeteredCustomerDAO.wrap(dao, backend, meterRegistry);
+        }
+        CustomerEmailIndex emailIndex = customerEmailIndex.getIfAvailable();
+        if (emailIndex != null) {
+            dao = new EmailIndexedCustomerDAO(dao, emailIndex, meterRegistry);
+        }
+        if (coalescingEnabled) {
+            // below the cache, whose loads already share one call per id, so this catches
+            // lookups that the cache does not hold or that run with the cache disabled
+            dao = new CoalescingCustomerDAO(dao, meterRegistry);
+        }
+        // the off-heap store answers from memory already; cached heap copies would only bring
+        // back the garbage it exists to avoid
+        if (cacheEnabled && !"offheap".equals(backend)) {
+            // Caffeine evicts with W-TinyLFU once the maximum size is reached
+            Cache<Long, Customer> cache = Caffeine.newBuilder()
+                    .maximumSize(cacheMaximumSize)
+                    .expireAfterWrite(cacheExpireAfterWrite)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+            dao = new CachingCustomerDAO(dao, cache);
+        }
+        return dao;
+    }
+
+    // the off-heap store looks emails up in its own hash index, so it gets no Bloom filter
+    @Bean
+    @ConditionalOnExpression("${customer.email-index.enabled} and '${customer.dao.backend}' != 'offheap'")
+    public CustomerEmailIndex customerEmailIndex(
+            @Value("${customer.email-index.expected-insertions}") long expectedInsertions,
+            @Value("${customer.email-index.false-positive-rate}") double falsePositiveRate,
+            MeterRegistry meterRegistry) {
+        CustomerEmailIndex emailIndex = new CustomerEmailIndex(expectedInsertions, falsePositiveRate);
+        Gauge.builder("customer.email.index.memory", emailIndex, CustomerEmailIndex::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.index.false.positive.rate", emailIndex, CustomerEmailIndex::falsePositiveRate)
+                .register(meterRegistry);
+        return emailIndex;
+    }
+
+    // until the warm-up finishes every check still goes to the database; the scan reads the
+    // configured backend itself, underneath the decorators
+    @Bean
+    @ConditionalOnExpression("${customer.email-index.enabled} and '${customer.dao.backend}' != 'offheap'")
+    public ApplicationRunner customerEmailIndexWarmUp(CustomerEmailIndex customerEmailIndex,
+                                                      @Value("${customer.dao.backend}") String backend,
+                                                      BeanFactory beanFactory,
+                                                      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                                      ObjectProvider<TaskExecutor> taskExecutor) {
+        return args -> taskExecutor.getIfAvailable(SyncTaskExecutor::new).execute(() -> {
+            beanFactory.getBean(backend, CustomerDAO.class).forEachCustomer(customer -> customerEmailIndex.put(customer.getEmail()));
+            customerEmailIndex.markReady();
+        });
+    }
+}
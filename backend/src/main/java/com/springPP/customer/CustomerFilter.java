@@ -0,0 +1,18 @@
+package com.springPP.customer;
+
+// Every condition is optional; prefixes match case-sensitively, in the "C" collation's byte order
+public record CustomerFilter(Integer minAge, Integer maxAge, String namePrefix, String emailPrefix) {
+
+    public static final CustomerFilter NONE = new CustomerFilter(null, null, null, null);
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    public boolean matches(Customer customer) {
+        return (minAge == null || customer.getAge() >= minAge)
+                && (maxAge == null || customer.getAge() <= maxAge)
+                && (namePrefix == null || customer.getName().startsWith(namePrefix))
+                && (emailPrefix == null || customer.getEmail().startsWith(emailPrefix));
+    }
+}
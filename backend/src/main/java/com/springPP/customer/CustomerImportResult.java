@@ -0,0 +1,4 @@
+package com.springPP.customer;
+
+public record CustomerImportResult(long received, long inserted, long skipped) {
+}
@@ -1,15 +1,31 @@
 package com.springPP.customer;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDAO {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
@@ -18,15 +34,107 @@ public class CustomerJDBCDataAccessService implements CustomerDAO {
         this.customerRowMapper = customerRowMapper;
     }
 
+    // reads mark themselves read-only without starting a transaction, which is what sends them
+    // to a replica when read/write routing is on; inside a writing transaction they join it
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Customer> selectAllCustomers() {
-        var query = "SELECT id, name, email, age FROM customer";
+        var query = "SELECT id, name, email, age, version FROM customer";
         return jdbcTemplate.query(query, customerRowMapper);
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer customerId) {
-        String query = "SELECT id, name, email, age FROM customer WHERE id = ?";
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomersAfterId(Long customerId, int limit) {
+        var query = """
+                SELECT id, name, email, age, version FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(query, customerRowMapper, customerId, limit);
+    }
+
+    // only fragments chosen here reach the SQL text, every value is a bind parameter; strings sort
+    // and match in the "C" collation of the (column COLLATE "C", id) indexes, which turns a LIKE
+    // prefix into an index range and lets the same index serve the keyset order
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit) {
+        StringBuilder query = new StringBuilder("SELECT id, name, email, age, version FROM customer WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (filter.minAge() != null) {
+            query.append(" AND age >= ?");
+            args.add(filter.minAge());
+        }
+        if (filter.maxAge() != null) {
+            query.append(" AND age <= ?");
+            args.add(filter.maxAge());
+        }
+        if (filter.namePrefix() != null) {
+            query.append(" AND name COLLATE \"C\" LIKE ?");
+            args.add(likePrefix(filter.namePrefix()));
+        }
+        if (filter.emailPrefix() != null) {
+            query.append(" AND email COLLATE \"C\" LIKE ?");
+            args.add(likePrefix(filter.emailPrefix()));
+        }
+        String key = sortKey(sort.field());
+        String direction = sort.descending() ? " DESC" : "";
+        if (after != null) {
+            String comparison = sort.descending() ? " < " : " > ";
+            if (sort.field() == CustomerSort.Field.ID) {
+                query.append(" AND id").append(comparison).append("?");
+            } else {
+                query.append(" AND (").append(key).append(", id)").append(comparison).append("(?, ?)");
+                args.add(sort.field().valueOf(after));
+            }
+            args.add(after.getId());
+        }
+        query.append(" ORDER BY ").append(key).append(direction);
+        if (sort.field() != CustomerSort.Field.ID) {
+            query.append(", id").append(direction);
+        }
+        query.append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(query.toString(), customerRowMapper, args.toArray());
+    }
+
+    private static String sortKey(CustomerSort.Field field) {
+        return switch (field) {
+            case ID -> "id";
+            case NAME -> "name COLLATE \"C\"";
+            case EMAIL -> "email COLLATE \"C\"";
+            case AGE -> "age";
+        };
+    }
+
+    // wildcards in the prefix match literally; backslash is the default LIKE escape
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    // PgJDBC only uses a server-side cursor when autocommit is off,
+    // so the fetch size is honoured only inside a transaction
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        var query = "SELECT id, name, email, age, version FROM customer ORDER BY id";
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> action.accept(customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        String query = "SELECT id, name, email, age, version FROM customer WHERE id = ?";
         return jdbcTemplate.query(query, customerRowMapper, customerId)
                 .stream().findFirst();
     }
@@ -41,28 +149,144 @@ public class CustomerJDBCDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        var query = """
+                INSERT INTO customer(name, email, age)
+                VALUES(?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, name, email, age, version
+                """;
+        return jdbcTemplate.query(query, customerRowMapper, customer.getName(), customer.getEmail(), customer.getAge())
+                .stream().findFirst();
+    }
+
+    // no trailing semicolon so PgJDBC can rewrite the batch into multi-row inserts
+    @Override
+    @Transactional
+    public void insertCustomers(List<Customer> customers) {
+        var query = "insert into customer(name, email, age) VALUES(?, ?, ?)";
+        jdbcTemplate.batchUpdate(query, customers, INSERT_BATCH_SIZE, (ps, customer) -> {
+            ps.setString(1, customer.getName());
+            ps.setString(2, customer.getEmail());
+            ps.setInt(3, customer.getAge());
+        });
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
         String query = "DELETE FROM customer WHERE id = ?";
         int result = this.jdbcTemplate.update(query, Long.valueOf(customerId));
     }
 
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        String query = "DELETE FROM customer WHERE id = ? RETURNING id, name, email, age, version";
+        return jdbcTemplate.query(query, customerRowMapper, customerId)
+                .stream().findFirst();
+    }
+
     @Override
     public void updateCustomer(Customer updatedCustomer) {
-        String query = "update customer set name = ?, email = ?, age = ? where id = ?";
+        String query = "update customer set name = ?, email = ?, age = ?, version = version + 1 where id = ?";
         jdbcTemplate.update(query, updatedCustomer.getName(), updatedCustomer.getEmail(), updatedCustomer.getAge(), updatedCustomer.getId());
     }
 
+    // null fields keep their current value; the row is only written when something actually changes
+    // and, if changes carries a version, only while the row is still at that version
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        var query = """
+                UPDATE customer
+                SET name = COALESCE(?, name), email = COALESCE(?, email), age = COALESCE(?, age),
+                    version = version + 1
+                WHERE id = ?
+                AND version = COALESCE(?, version)
+                AND (name, email, age) IS DISTINCT FROM (COALESCE(?, name), COALESCE(?, email), COALESCE(?, age))
+                RETURNING id, name, email, age, version
+                """;
+        Object[] args = {
+                changes.getName(), changes.getEmail(), changes.getAge(), changes.getId(), changes.getVersion(),
+                changes.getName(), changes.getEmail(), changes.getAge()
+        };
+        int[] argTypes = {
+                Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.BIGINT,
+                Types.VARCHAR, Types.VARCHAR, Types.INTEGER
+        };
+        return jdbcTemplate.query(query, args, argTypes, customerRowMapper)
+                .stream().findFirst();
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        String query = "DELETE FROM customer WHERE id = ANY(?) RETURNING id";
+        return jdbcTemplate.queryForList(query, Long.class, (Object) customerIds.toArray(Long[]::new));
+    }
+
+    // the batch travels as one array per column and is joined to the table with unnest; the outer
+    // select still sees the rows as they were before the update, which tells unchanged from missing
     @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        var query = """
+                WITH changes AS (
+                    SELECT * FROM unnest(?::bigint[], ?::text[], ?::text[], ?::int[]) AS changes(id, name, email, age)
+                ), updated AS (
+                    UPDATE customer c
+                    SET name = COALESCE(changes.name, c.name), email = COALESCE(changes.email, c.email),
+                        age = COALESCE(changes.age, c.age), version = c.version + 1
+                    FROM changes
+                    WHERE c.id = changes.id
+                    AND (c.name, c.email, c.age) IS DISTINCT FROM
+                        (COALESCE(changes.name, c.name), COALESCE(changes.email, c.email), COALESCE(changes.age, c.age))
+                    RETURNING c.id
+                )
+                SELECT changes.id, customer.id IS NOT NULL, updated.id IS NOT NULL
+                FROM changes
+                LEFT JOIN customer ON customer.id = changes.id
+                LEFT JOIN updated ON updated.id = changes.id
+                """;
+        Map<Long, Boolean> updatedById = new HashMap<>();
+        jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+                    if (rs.getBoolean(2)) {
+                        updatedById.put(rs.getLong(1), rs.getBoolean(3));
+                    }
+                },
+                changes.stream().map(Customer::getId).toArray(Long[]::new),
+                changes.stream().map(Customer::getName).toArray(String[]::new),
+                changes.stream().map(Customer::getEmail).toArray(String[]::new),
+                changes.stream().map(Customer::getAge).toArray(Integer[]::new));
+        return CustomerBulkUpdateResult.of(changes, updatedById);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public boolean existsPersonWithEmail(String email) {
-        String query = "SELECT count(id) FROM customer WHERE email = ?";
-        Integer count = jdbcTemplate.queryForObject(query, Integer.class, email);
-        return count != 0 && count > 0;
+        String query = "SELECT EXISTS(SELECT 1 FROM customer WHERE email = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(query, Boolean.class, email));
     }
 
     @Override
-    public boolean existsCustomerWithId(Integer customerId) {
-        String query = "SELECT count(id) FROM customer WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(query, Integer.class, customerId);
-        return count != null && count > 0;
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        String query = "SELECT email FROM customer WHERE email = ANY(?)";
+        return new HashSet<>(jdbcTemplate.queryForList(
+                query, String.class, (Object) emails.toArray(String[]::new)));
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public boolean existsCustomerWithId(Long customerId) {
+        String query = "SELECT EXISTS(SELECT 1 FROM customer WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(query, Boolean.class, customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public CustomerCollectionVersion selectCollectionVersion() {
+        var query = """
+                SELECT count(*), COALESCE(max(id), 0), COALESCE(sum(id), 0)::bigint, COALESCE(sum(version), 0)::bigint
+                FROM customer
+                """;
+        return jdbcTemplate.queryForObject(query, (rs, rowNum) ->
+                new CustomerCollectionVersion(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
     }
 }
@@ -1,9 +1,17 @@
 package com.springPP.customer;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 
@@ -21,7 +29,27 @@ public class CustomerJPADataAccessService implements CustomerDAO {
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer customerId) {
+    public List<Customer> selectCustomersAfterId(Long customerId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(customerId, Limit.of(limit));
+    }
+
+    // no Sort here: the specification orders by the collated key itself
+    @Override
+    public List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit) {
+        return customerRepository.findBy(CustomerSpecifications.page(filter, sort, after),
+                query -> query.limit(limit).all());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        try (Stream<Customer> customers = customerRepository.streamAllBy()) {
+            customers.forEach(action);
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
         return customerRepository.findById(customerId);
     }
 
@@ -31,13 +59,61 @@ public class CustomerJPADataAccessService implements CustomerDAO {
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        return customerRepository.insertIfEmailAbsent(customer.getName(), customer.getEmail(), customer.getAge());
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        customerRepository.saveAll(customers);
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
         customerRepository.deleteById(customerId);
     }
 
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        return customerRepository.deleteByIdReturning(customerId);
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        return customerRepository.deleteByIdsReturningIds(customerIds.toArray(Long[]::new));
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        List<Object[]> rows = customerRepository.updateAllIfChanged(
+                changes.stream().map(Customer::getId).toArray(Long[]::new),
+                changes.stream().map(Customer::getName).toArray(String[]::new),
+                changes.stream().map(Customer::getEmail).toArray(String[]::new),
+                changes.stream().map(Customer::getAge).toArray(Integer[]::new));
+        Map<Long, Boolean> updatedById = new HashMap<>();
+        for (Object[] row : rows) {
+            if ((Boolean) row[1]) {
+                updatedById.put(((Number) row[0]).longValue(), (Boolean) row[2]);
+            }
+        }
+        return CustomerBulkUpdateResult.of(changes, updatedById);
+    }
+
+    // save() takes a customer without a version for a new one and would insert it
     @Override
     public void updateCustomer(Customer customer) {
-        customerRepository.save(customer);
+        if (customer.getVersion() == null) {
+            customerRepository.updateIfChanged(
+                    customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(), null);
+        } else {
+            customerRepository.save(customer);
+        }
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        return customerRepository.updateIfChanged(
+                changes.getId(), changes.getName(), changes.getEmail(), changes.getAge(), changes.getVersion());
     }
 
     @Override
@@ -46,7 +122,17 @@ public class CustomerJPADataAccessService implements CustomerDAO {
     }
 
     @Override
-    public boolean existsCustomerWithId(Integer customerId) {
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return customerRepository.findEmailsByEmailIn(emails);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
         return customerRepository.existsCustomerById(customerId);
     }
+
+    @Override
+    public CustomerCollectionVersion selectCollectionVersion() {
+        return customerRepository.selectCollectionVersion();
+    }
 }
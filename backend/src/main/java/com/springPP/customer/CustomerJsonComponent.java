@@ -0,0 +1,139 @@
+package com.springPP.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+// Hand-written codecs for the types on the hot request paths. Field names are pre-encoded
+// once, values go straight into the generator's buffer, and the readers match names with
+// a switch instead of going through bean properties. The output is identical to what the
+// reflective serializer writes, nulls included.
+@JsonComponent
+public class CustomerJsonComponent {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString AGE = new SerializedString("age");
+
+    public static class Serializer extends JsonSerializer<Customer> {
+
+        @Override
+        public void serialize(Customer customer, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject(customer);
+            generator.writeFieldName(ID);
+            if (customer.getId() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(customer.getId());
+            }
+            generator.writeFieldName(NAME);
+            generator.writeString(customer.getName());
+            generator.writeFieldName(EMAIL);
+            generator.writeString(customer.getEmail());
+            generator.writeFieldName(AGE);
+            if (customer.getAge() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(customer.getAge());
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public Class<Customer> handledType() {
+            return Customer.class;
+        }
+    }
+
+    public static class RegistrationRequestDeserializer extends JsonDeserializer<CustomerRegistrationRequest> {
+
+        @Override
+        public CustomerRegistrationRequest deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            Fields fields = Fields.read(parser, context, this, CustomerRegistrationRequest.class);
+            return new CustomerRegistrationRequest(fields.name, fields.email, fields.age);
+        }
+    }
+
+    public static class EditRequestDeserializer extends JsonDeserializer<CustomerEditRequest> {
+
+        @Override
+        public CustomerEditRequest deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            Fields fields = Fields.read(parser, context, this, CustomerEditRequest.class);
+            return new CustomerEditRequest(fields.name, fields.email, fields.age);
+        }
+    }
+
+    public static class BulkEditRequestDeserializer extends JsonDeserializer<CustomerBulkEditRequest> {
+
+        @Override
+        public CustomerBulkEditRequest deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            Fields fields = Fields.read(parser, context, this, CustomerBulkEditRequest.class);
+            return new CustomerBulkEditRequest(fields.id, fields.name, fields.email, fields.age);
+        }
+    }
+
+    private static final class Fields {
+
+        private Long id;
+        private String name;
+        private String email;
+        private Integer age;
+
+        // anything other than the common token shapes goes through the context,
+        // so coercion rules and error messages stay those of the default deserializers
+        static Fields read(JsonParser parser, DeserializationContext context,
+                           JsonDeserializer<?> deserializer, Class<?> type) throws IOException {
+            if (!parser.isExpectedStartObjectToken() && parser.currentToken() != JsonToken.FIELD_NAME) {
+                context.handleUnexpectedToken(type, parser);
+            }
+            Fields fields = new Fields();
+            String field = parser.isExpectedStartObjectToken() ? parser.nextFieldName() : parser.currentName();
+            for (; field != null; field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    // only the bulk edit names its customer in the body
+                    case "id" -> {
+                        if (type != CustomerBulkEditRequest.class) {
+                            context.handleUnknownProperty(parser, deserializer, type, field);
+                        } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                            fields.id = parser.getLongValue();
+                        } else {
+                            fields.id = context.readValue(parser, Long.class);
+                        }
+                    }
+                    case "name" -> fields.name = string(parser, context, token);
+                    case "email" -> fields.email = string(parser, context, token);
+                    case "age" -> fields.age = switch (token) {
+                        case VALUE_NUMBER_INT -> parser.getIntValue();
+                        case VALUE_NULL -> null;
+                        default -> context.readValue(parser, Integer.class);
+                    };
+                    default -> context.handleUnknownProperty(parser, deserializer, type, field);
+                }
+            }
+            return fields;
+        }
+
+        private static String string(JsonParser parser, DeserializationContext context, JsonToken token)
+                throws IOException {
+            return switch (token) {
+                case VALUE_STRING -> parser.getText();
+                case VALUE_NULL -> null;
+                default -> context.readValue(parser, String.class);
+            };
+        }
+    }
+}
@@ -1,61 +1,311 @@
 package com.springPP.customer;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+// Rows are immutable once stored: every write replaces the Customer instance and
+// callers only ever see copies. Per-row updates run inside ConcurrentHashMap.compute,
+// which locks a single bin, so writers to different customers do not contend.
 @Repository("list")
 public class CustomerListDataAccessService implements CustomerDAO {
-    //static db
-    private static List<Customer> customers;
 
-    static {
-        customers = new ArrayList<>();
+    private final ConcurrentHashMap<Long, Customer> customersById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> customerIdsByEmail = new ConcurrentHashMap<>();
+    // ordered view of the ids for keyset pages and full scans
+    private final ConcurrentSkipListSet<Long> customerIds = new ConcurrentSkipListSet<>();
+    private final AtomicLong lastId = new AtomicLong();
 
-        Customer alex = new Customer(1, "Alex", "@gmail.com", 25);
-        customers.add(alex);
-        Customer anakin = new Customer(2, "Anakin", "123@gmail.com", 39);
-        customers.add(anakin);
+    public CustomerListDataAccessService() {
+        insertCustomer(new Customer("Alex", "@gmail.com", 25));
+        insertCustomer(new Customer("Anakin", "123@gmail.com", 39));
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(customersById.size());
+        forEachCustomer(customers::add);
         return customers;
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer customerId) {
-        return customers.stream()
-                .filter(c -> c.getId().equals(customerId))
-                .findFirst();
+    public List<Customer> selectCustomersAfterId(Long customerId, int limit) {
+        List<Customer> page = new ArrayList<>(Math.min(limit, customersById.size()));
+        for (Long id : customerIds.tailSet(customerId, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                page.add(copyOf(customer));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit) {
+        if (sort.field() == CustomerSort.Field.ID) {
+            return selectCustomersInIdOrder(filter, sort.descending(), after, limit);
+        }
+        // no index for the other fields: one pass keeps the best rows of the page in a bounded heap
+        Comparator<Customer> order = sort.comparator();
+        PriorityQueue<Customer> page = new PriorityQueue<>(order.reversed());
+        for (Customer customer : customersById.values()) {
+            if (filter.matches(customer) && (after == null || order.compare(customer, after) > 0)) {
+                page.add(customer);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        }
+        return page.stream()
+                .sorted(order)
+                .map(CustomerListDataAccessService::copyOf)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    // walks the id index from the cursor and stops as soon as the page is full
+    private List<Customer> selectCustomersInIdOrder(CustomerFilter filter, boolean descending, Customer after,
+                                                    int limit) {
+        NavigableSet<Long> ids = descending ? customerIds.descendingSet() : customerIds;
+        if (after != null) {
+            ids = ids.tailSet(after.getId(), false);
+        }
+        List<Customer> page = new ArrayList<>(Math.min(limit, customersById.size()));
+        for (Long id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            Customer customer = customersById.get(id);
+            if (customer != null && filter.matches(customer)) {
+                page.add(copyOf(customer));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        for (Long id : customerIds) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                action.accept(copyOf(customer));
+            }
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        Customer customer = customersById.get(customerId);
+        return customer == null ? Optional.empty() : Optional.of(copyOf(customer));
     }
 
     @Override
     public void insertCustomer(Customer customer) {
-        customers.add(customer);
+        if (insert(customer).isEmpty()) {
+            throw new DuplicateKeyException("email %s already exists".formatted(customer.getEmail()));
+        }
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
-        customers.removeIf(c -> c.getId().equals(customerId));
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        return insert(customer);
     }
 
+    // all or nothing, like the database batches: every email is reserved before any row is stored,
+    // and a conflict releases what the batch took. Readers may see part of the batch while it is
+    // being stored, as they could not with a transaction
     @Override
-    public void updateCustomer(Customer updatedCustomer) {
-        customers.add(updatedCustomer);
+    public void insertCustomers(List<Customer> customers) {
+        customers.forEach(CustomerListDataAccessService::requireComplete);
+        long[] ids = new long[customers.size()];
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            ids[i] = assignId(customer);
+            if (customerIdsByEmail.putIfAbsent(customer.getEmail(), ids[i]) != null) {
+                releaseEmails(customers, ids, 0, i);
+                throw new DuplicateKeyException("email %s already exists".formatted(customer.getEmail()));
+            }
+        }
+        for (int i = 0; i < customers.size(); i++) {
+            try {
+                store(ids[i], customers.get(i));
+            } catch (DuplicateKeyException e) {
+                for (int j = 0; j < i; j++) {
+                    customersById.remove(ids[j]);
+                    customerIds.remove(ids[j]);
+                }
+                releaseEmails(customers, ids, 0, i);
+                releaseEmails(customers, ids, i + 1, customers.size());
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        deleteCustomerByIdReturning(customerId);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        Customer removed = customersById.remove(customerId);
+        if (removed == null) {
+            return Optional.empty();
+        }
+        customerIds.remove(customerId);
+        customerIdsByEmail.remove(removed.getEmail(), customerId);
+        return Optional.of(copyOf(removed));
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        update(customer);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        return update(changes);
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        return customerIds.stream()
+                .filter(id -> deleteCustomerByIdReturning(id).isPresent())
+                .toList();
+    }
+
+    // applied customer by customer, unlike the database backends it is not atomic across the batch
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        Map<Long, Boolean> updatedById = new HashMap<>();
+        for (Customer customer : changes) {
+            if (customersById.containsKey(customer.getId())) {
+                Customer unversioned = new Customer(customer.getId(), customer.getName(), customer.getEmail(),
+                        customer.getAge());
+                updatedById.put(customer.getId(), update(unversioned).isPresent());
+            }
+        }
+        return CustomerBulkUpdateResult.of(changes, updatedById);
     }
 
     @Override
     public boolean existsPersonWithEmail(String email) {
-        return customers.stream()
-                .anyMatch(c -> c.getEmail().equals(email));
+        return email != null && customerIdsByEmail.containsKey(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream()
+                .filter(this::existsPersonWithEmail)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
+        return customersById.containsKey(customerId);
     }
 
     @Override
-    public boolean existsCustomerWithId(Integer customerId) {
-        return customers.stream()
-                .anyMatch(c -> c.getId().equals(customerId));
+    public CustomerCollectionVersion selectCollectionVersion() {
+        return CustomerCollectionVersion.of(selectAllCustomers());
+    }
+
+    // the email is reserved first, so two inserts racing for it cannot both win
+    private Optional<Customer> insert(Customer customer) {
+        requireComplete(customer);
+        long id = assignId(customer);
+        if (customerIdsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+            return Optional.empty();
+        }
+        return Optional.of(copyOf(store(id, customer)));
+    }
+
+    private long assignId(Customer customer) {
+        if (customer.getId() == null) {
+            return lastId.incrementAndGet();
+        }
+        lastId.accumulateAndGet(customer.getId(), Math::max);
+        return customer.getId();
+    }
+
+    // the email must already be reserved for the id; an id conflict releases it
+    private Customer store(long id, Customer customer) {
+        Customer stored = new Customer(id, customer.getName(), customer.getEmail(), customer.getAge(), 0L);
+        // readers skip ids whose row is not in the map yet
+        customerIds.add(id);
+        if (customersById.putIfAbsent(id, stored) != null) {
+            customerIdsByEmail.remove(customer.getEmail(), id);
+            throw new DuplicateKeyException("customer %s already exists".formatted(id));
+        }
+        return stored;
+    }
+
+    private void releaseEmails(List<Customer> customers, long[] ids, int from, int to) {
+        for (int i = from; i < to; i++) {
+            customerIdsByEmail.remove(customers.get(i).getEmail(), ids[i]);
+        }
+    }
+
+    private Optional<Customer> update(Customer changes) {
+        Customer[] previous = new Customer[1];
+        Customer updated = customersById.computeIfPresent(changes.getId(), (id, current) -> {
+            if (changes.getVersion() != null && !changes.getVersion().equals(current.getVersion())) {
+                return current;
+            }
+            Customer candidate = new Customer(
+                    id,
+                    changes.getName() != null ? changes.getName() : current.getName(),
+                    changes.getEmail() != null ? changes.getEmail() : current.getEmail(),
+                    changes.getAge() != null ? changes.getAge() : current.getAge(),
+                    current.getVersion() + 1
+            );
+            if (candidate.equals(current)) {
+                return current;
+            }
+            if (!candidate.getEmail().equals(current.getEmail())) {
+                Long owner = customerIdsByEmail.putIfAbsent(candidate.getEmail(), id);
+                if (owner != null && !owner.equals(id)) {
+                    throw new DuplicateKeyException("email %s already exists".formatted(candidate.getEmail()));
+                }
+            }
+            previous[0] = current;
+            return candidate;
+        });
+        if (previous[0] == null) {
+            return Optional.empty();
+        }
+        if (!previous[0].getEmail().equals(updated.getEmail())) {
+            customerIdsByEmail.remove(previous[0].getEmail(), updated.getId());
+        }
+        return Optional.of(copyOf(updated));
+    }
+
+    private static void requireComplete(Customer customer) {
+        if (customer.getName() == null || customer.getEmail() == null || customer.getAge() == null) {
+            throw new DataIntegrityViolationException("name, email and age must not be null");
+        }
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(),
+                customer.getVersion());
     }
 }
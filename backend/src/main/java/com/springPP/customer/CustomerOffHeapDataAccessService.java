@@ -0,0 +1,321 @@
+package com.springPP.customer;
+
+import com.springPP.exception.ReadOnlyStoreException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Read-only backend for edge replicas: the whole table lives in an OffHeapCustomerStore
+// loaded from the database, and reload() swaps in a fresh copy. With snapshots enabled
+// startup maps the last CustomerSnapshot and only fetches rows above its high-water mark.
+// Rows changed, deleted or inserted below it show up in the collection version, so a snapshot
+// that does not match the database after the catch-up is replaced by a full reload, and every
+// refresh-interval the same check decides whether to reload. Loads, refreshes and snapshot
+// writes hold the instance lock, so two of them never write the same temporary file.
+// Readers never take it, they see whichever store was swapped in last.
+@Repository("offheap")
+@ConditionalOnProperty(name = "customer.dao.backend", havingValue = "offheap")
+public class CustomerOffHeapDataAccessService implements CustomerDAO, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerOffHeapDataAccessService.class);
+    private static final int CATCH_UP_PAGE_SIZE = 10_000;
+
+    private final CustomerDAO source;
+    private final Path snapshotPath;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService refreshes;
+    private volatile OffHeapCustomerStore store = OffHeapCustomerStore.empty();
+
+    // a zero refresh interval leaves reloads to the caller
+    public CustomerOffHeapDataAccessService(@Qualifier("jdbc") CustomerDAO source,
+                                            @Value("${customer.snapshot.enabled}") boolean snapshotEnabled,
+                                            @Value("${customer.snapshot.path}") Path snapshotPath,
+                                            @Value("${customer.snapshot.refresh-interval}") Duration refreshInterval,
+                                            MeterRegistry meterRegistry) {
+        this.source = source;
+        this.snapshotPath = snapshotEnabled ? snapshotPath : null;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("customer.offheap.memory", this, dao -> dao.store.offHeapBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("customer.offheap.rows", this, dao -> dao.store.size())
+                .register(meterRegistry);
+        if (snapshotPath == null || !Files.exists(snapshotPath) || !loadSnapshot()) {
+            reload();
+        }
+        if (refreshInterval.isZero()) {
+            refreshes = null;
+        } else {
+            refreshes = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "customer-offheap-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refreshes.scheduleWithFixedDelay(this::refreshQuietly,
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // one aggregate query against the database and one pass over the store decide whether
+    // the full reload is needed
+    public synchronized boolean refreshIfChanged() {
+        if (source.selectCollectionVersion().equals(selectCollectionVersion())) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    private void refreshQuietly() {
+        try {
+            if (refreshIfChanged()) {
+                log.info("off-heap customer store reloaded, {} rows", store.size());
+            }
+        } catch (RuntimeException e) {
+            // the next run tries again, the current store keeps serving
+            log.warn("off-heap customer store refresh failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (refreshes != null) {
+            refreshes.shutdownNow();
+        }
+    }
+
+    public synchronized void reload() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OffHeapCustomerStore.Builder builder = OffHeapCustomerStore.builder();
+        source.forEachCustomer(builder::add);
+        store = builder.build();
+        sample.stop(loadTimer("database"));
+        writeSnapshot();
+    }
+
+    // a snapshot that fails its checks is ignored and replaced by a full reload
+    private synchronized boolean loadSnapshot() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OffHeapCustomerStore snapshot;
+        try {
+            snapshot = CustomerSnapshot.read(snapshotPath);
+        } catch (IOException e) {
+            return false;
+        }
+        List<Customer> newer = new ArrayList<>();
+        List<Customer> page;
+        do {
+            long after = newer.isEmpty() ? snapshot.highWaterMark() : newer.get(newer.size() - 1).getId();
+            page = source.selectCustomersAfterId(after, CATCH_UP_PAGE_SIZE);
+            newer.addAll(page);
+        } while (page.size() == CATCH_UP_PAGE_SIZE);
+        store = snapshot.withAppended(newer);
+        if (!source.selectCollectionVersion().equals(selectCollectionVersion())) {
+            // rows below the high-water mark were updated, deleted or inserted since the snapshot
+            return false;
+        }
+        sample.stop(loadTimer("snapshot"));
+        if (!newer.isEmpty()) {
+            writeSnapshot();
+        }
+        return true;
+    }
+
+    private void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            CustomerSnapshot.write(store, snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Timer loadTimer(String source) {
+        return Timer.builder("customer.offheap.load")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(store.size());
+        forEachCustomer(customers::add);
+        return customers;
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfterId(Long customerId, int limit) {
+        OffHeapCustomerStore current = store;
+        int from = current.firstRowAfterId(customerId);
+        int to = (int) Math.min(current.size(), (long) from + limit);
+        List<Customer> page = new ArrayList<>(Math.max(0, to - from));
+        for (int row = from; row < to; row++) {
+            page.add(current.customerAt(row));
+        }
+        return page;
+    }
+
+    // rows are stored in id order, so id pages walk from the cursor in either direction and stop
+    // as soon as they are full; any other order looks at every matching row but only keeps the
+    // best rows of the page in a bounded heap
+    @Override
+    public List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit) {
+        OffHeapCustomerStore current = store;
+        if (sort.field() == CustomerSort.Field.ID) {
+            List<Customer> page = new ArrayList<>(Math.min(limit, current.size()));
+            if (sort.descending()) {
+                int row = after == null ? current.size() - 1 : current.firstRowAfterId(after.getId() - 1) - 1;
+                for (; row >= 0 && page.size() < limit; row--) {
+                    addIfMatches(current, row, filter, page);
+                }
+            } else {
+                int row = current.firstRowAfterId(after == null ? 0 : after.getId());
+                for (; row < current.size() && page.size() < limit; row++) {
+                    addIfMatches(current, row, filter, page);
+                }
+            }
+            return page;
+        }
+        Comparator<Customer> order = sort.comparator();
+        PriorityQueue<Customer> page = new PriorityQueue<>(order.reversed());
+        for (int row = 0; row < current.size(); row++) {
+            Customer customer = current.customerAt(row);
+            if (filter.matches(customer) && (after == null || order.compare(customer, after) > 0)) {
+                page.add(customer);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        }
+        return page.stream()
+                .sorted(order)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static void addIfMatches(OffHeapCustomerStore store, int row, CustomerFilter filter, List<Customer> page) {
+        Customer customer = store.customerAt(row);
+        if (filter.matches(customer)) {
+            page.add(customer);
+        }
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        OffHeapCustomerStore current = store;
+        for (int row = 0; row < current.size(); row++) {
+            action.accept(current.customerAt(row));
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        OffHeapCustomerStore current = store;
+        int row = current.rowOfId(customerId);
+        return row < 0 ? Optional.empty() : Optional.of(current.customerAt(row));
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        throw readOnly();
+    }
+
+    @Override
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        throw readOnly();
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        throw readOnly();
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        throw readOnly();
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        throw readOnly();
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return email != null && store.rowOfEmail(email) >= 0;
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        OffHeapCustomerStore current = store;
+        return emails.stream()
+                .filter(email -> email != null && current.rowOfEmail(email) >= 0)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
+        return store.rowOfId(customerId) >= 0;
+    }
+
+    @Override
+    public CustomerCollectionVersion selectCollectionVersion() {
+        OffHeapCustomerStore current = store;
+        long idSum = 0;
+        long versionSum = 0;
+        for (int row = 0; row < current.size(); row++) {
+            idSum += current.idAt(row);
+            versionSum += current.versionAt(row);
+        }
+        return new CustomerCollectionVersion(current.size(), current.highWaterMark(), idSum, versionSum);
+    }
+
+    private static ReadOnlyStoreException readOnly() {
+        return new ReadOnlyStoreException("the off-heap customer store is read-only");
+    }
+}
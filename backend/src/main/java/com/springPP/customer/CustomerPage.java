@@ -0,0 +1,31 @@
+package com.springPP.customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+public record CustomerPage(List<Customer> customers, String nextCursor) {
+
+    // Validator of this page: a digest of the ordered (id, version) pairs and the next cursor.
+    // Count, max id and version sum are not enough once a filter or sort decides which rows
+    // make the page, since a row can leave it while another one with the same version enters
+    String fingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer pair = ByteBuffer.allocate(2 * Long.BYTES);
+        for (Customer customer : customers) {
+            digest.update(pair.clear().putLong(customer.getId()).putLong(customer.getVersion()).flip());
+        }
+        if (nextCursor != null) {
+            digest.update(nextCursor.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+}
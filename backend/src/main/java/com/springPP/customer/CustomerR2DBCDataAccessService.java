@@ -0,0 +1,100 @@
+package com.springPP.customer;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository("r2dbc")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CustomerR2DBCDataAccessService implements ReactiveCustomerDAO {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2DBCDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // with a fetch size the driver pulls rows from a portal as the subscriber requests them
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        return databaseClient.sql("SELECT id, name, email, age, version FROM customer ORDER BY id")
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerR2DBCDataAccessService::mapRow)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long customerId) {
+        return databaseClient.sql("SELECT id, name, email, age, version FROM customer WHERE id = :id")
+                .bind("id", customerId)
+                .map(CustomerR2DBCDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Mono<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        var query = """
+                INSERT INTO customer(name, email, age)
+                VALUES (:name, :email, :age)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, name, email, age, version
+                """;
+        return databaseClient.sql(query)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("age", customer.getAge())
+                .map(CustomerR2DBCDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Mono<Customer> deleteCustomerByIdReturning(Long customerId) {
+        return databaseClient.sql("DELETE FROM customer WHERE id = :id RETURNING id, name, email, age, version")
+                .bind("id", customerId)
+                .map(CustomerR2DBCDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Mono<Customer> updateCustomerIfChanged(Customer changes) {
+        var query = """
+                UPDATE customer
+                SET name = COALESCE(:name, name),
+                    email = COALESCE(:email, email),
+                    age = COALESCE(:age, age),
+                    version = version + 1
+                WHERE id = :id
+                AND (name, email, age) IS DISTINCT FROM
+                    (COALESCE(:name, name), COALESCE(:email, email), COALESCE(:age, age))
+                RETURNING id, name, email, age, version
+                """;
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(query).bind("id", changes.getId());
+        spec = changes.getName() == null ? spec.bindNull("name", String.class) : spec.bind("name", changes.getName());
+        spec = changes.getEmail() == null ? spec.bindNull("email", String.class) : spec.bind("email", changes.getEmail());
+        spec = changes.getAge() == null ? spec.bindNull("age", Integer.class) : spec.bind("age", changes.getAge());
+        return spec.map(CustomerR2DBCDataAccessService::mapRow).one();
+    }
+
+    @Override
+    public Mono<Boolean> existsCustomerWithId(Long customerId) {
+        return databaseClient.sql("SELECT EXISTS(SELECT 1 FROM customer WHERE id = :id)")
+                .bind("id", customerId)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    private static Customer mapRow(Readable row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                row.get("version", Long.class)
+        );
+    }
+}
@@ -1,10 +1,105 @@
 package com.springPP.customer;
 
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
     boolean existsCustomerByEmail(String email);
-    boolean existsCustomerById(Integer id);
+    boolean existsCustomerById(Long id);
+    @Query("select c.email from Customer c where c.email in :emails")
+    Set<String> findEmailsByEmailIn(@Param("emails") Collection<String> emails);
+
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // constructor expression keeps the rows out of the persistence context
+    @Query("select new com.springPP.customer.Customer(c.id, c.name, c.email, c.age, c.version) from Customer c order by c.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Customer> streamAllBy();
+
+    @Query("""
+            select new com.springPP.customer.CustomerCollectionVersion(
+                count(c), coalesce(max(c.id), 0L), coalesce(sum(c.id), 0L), coalesce(sum(c.version), 0L))
+            from Customer c
+            """)
+    CustomerCollectionVersion selectCollectionVersion();
+
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO customer(name, email, age)
+            VALUES(:name, :email, :age)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id, name, email, age, version
+            """)
+    Optional<Customer> insertIfEmailAbsent(@Param("name") String name,
+                                           @Param("email") String email,
+                                           @Param("age") Integer age);
+
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM customer WHERE id = :id RETURNING id, name, email, age, version")
+    Optional<Customer> deleteByIdReturning(@Param("id") Long id);
+
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM customer WHERE id = ANY(CAST(:ids AS BIGINT[])) RETURNING id")
+    List<Long> deleteByIdsReturningIds(@Param("ids") Long[] ids);
+
+    // rows of (id, exists, updated) for every id of the batch, see CustomerJDBCDataAccessService
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            WITH changes AS (
+                SELECT * FROM unnest(CAST(:ids AS BIGINT[]), CAST(:names AS TEXT[]), CAST(:emails AS TEXT[]),
+                                     CAST(:ages AS INT[])) AS changes(id, name, email, age)
+            ), updated AS (
+                UPDATE customer c
+                SET name = COALESCE(changes.name, c.name), email = COALESCE(changes.email, c.email),
+                    age = COALESCE(changes.age, c.age), version = c.version + 1
+                FROM changes
+                WHERE c.id = changes.id
+                AND (c.name, c.email, c.age) IS DISTINCT FROM
+                    (COALESCE(changes.name, c.name), COALESCE(changes.email, c.email), COALESCE(changes.age, c.age))
+                RETURNING c.id
+            )
+            SELECT changes.id, customer.id IS NOT NULL, updated.id IS NOT NULL
+            FROM changes
+            LEFT JOIN customer ON customer.id = changes.id
+            LEFT JOIN updated ON updated.id = changes.id
+            """)
+    List<Object[]> updateAllIfChanged(@Param("ids") Long[] ids,
+                                      @Param("names") String[] names,
+                                      @Param("emails") String[] emails,
+                                      @Param("ages") Integer[] ages);
+
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            UPDATE customer
+            SET name = COALESCE(CAST(:name AS TEXT), name),
+                email = COALESCE(CAST(:email AS TEXT), email),
+                age = COALESCE(CAST(:age AS INT), age),
+                version = version + 1
+            WHERE id = :id
+            AND version = COALESCE(CAST(:version AS BIGINT), version)
+            AND (name, email, age) IS DISTINCT FROM
+                (COALESCE(CAST(:name AS TEXT), name), COALESCE(CAST(:email AS TEXT), email), COALESCE(CAST(:age AS INT), age))
+            RETURNING id, name, email, age, version
+            """)
+    Optional<Customer> updateIfChanged(@Param("id") Long id,
+                                       @Param("name") String name,
+                                       @Param("email") String email,
+                                       @Param("age") Integer age,
+                                       @Param("version") Long version);
 }
@@ -12,10 +12,11 @@ public class CustomerRowMapper implements RowMapper<Customer> {
     @Override
     public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
             return new Customer(
-                    rs.getInt("id"),
+                    rs.getLong("id"),
                     rs.getString("name"),
                     rs.getString("email"),
-                    rs.getInt("age")
+                    rs.getInt("age"),
+                    rs.getLong("version")
             );
     }
 }
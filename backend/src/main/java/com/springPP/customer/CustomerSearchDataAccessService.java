@@ -0,0 +1,91 @@
+package com.springPP.customer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+// Postgres only: relies on the generated search column and the trigram indexes from V5/V6,
+// so it is used directly like CustomerCopyImporter rather than through the DAO backends
+@Repository
+public class CustomerSearchDataAccessService {
+
+    // Every matcher takes its page in rank order: the word distance ordering is served by the
+    // GiST trigram index from V6, or the planner sorts all word hits when those are few, so the
+    // best match is never cut off by an unordered candidate limit
+    private static final String WORD_MATCHES = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE search @@ to_tsquery('simple', ?)
+            ORDER BY name <->> ?, id
+            LIMIT ?
+            """;
+
+    private static final String NAME_MATCHES = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE ? <% name AND NOT coalesce(search @@ to_tsquery('simple', ?), false)
+            ORDER BY name <->> ?, id
+            LIMIT ?
+            """;
+
+    // the domain is not indexed, a mistyped address mostly gets the local part wrong
+    private static final String EMAIL_MATCHES = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE split_part(email, '@', 1) % ? AND NOT coalesce(search @@ to_tsquery('simple', ?), false)
+            ORDER BY split_part(email, '@', 1) <-> ?, id
+            LIMIT ?
+            """;
+
+    // a single typo keeps both similarities above 0.74 on realistic names and addresses, and the
+    // higher bar keeps the index scan from visiting rows that would never make the page
+    private static final String FUZZY_SETTINGS = """
+            SELECT set_config('pg_trgm.similarity_threshold', '0.7', true),
+                   set_config('pg_trgm.word_similarity_threshold', '0.7', true)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRowMapper customerRowMapper;
+
+    public CustomerSearchDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRowMapper = customerRowMapper;
+    }
+
+    // word prefix matches rank first; trigram matches only fill the rest of the page,
+    // so they are not looked for at all when the words already fill it
+    @Transactional(readOnly = true)
+    public List<Customer> searchCustomers(String text, int limit) {
+        String words = prefixQuery(text);
+        List<Customer> found = new ArrayList<>();
+        if (words != null) {
+            found.addAll(jdbcTemplate.query(WORD_MATCHES, customerRowMapper, words, text, limit));
+        }
+        if (found.size() < limit) {
+            jdbcTemplate.execute(FUZZY_SETTINGS);
+            int at = text.indexOf('@');
+            String fuzzy = at < 0 ? text : text.substring(0, at);
+            found.addAll(jdbcTemplate.query(at < 0 ? NAME_MATCHES : EMAIL_MATCHES, customerRowMapper,
+                    fuzzy, words, fuzzy, limit - found.size()));
+        }
+        return found;
+    }
+
+    // "Jen smi" -> "jen:* & smi:*"; only letters and digits survive, so no tsquery syntax gets
+    // through, and single characters are dropped since their prefix matches most of the table.
+    // Null when no word is left
+    static String prefixQuery(String text) {
+        StringJoiner query = new StringJoiner(" & ");
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() > 1) {
+                query.add(word.toLowerCase(Locale.ROOT) + ":*");
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+}
@@ -3,26 +3,109 @@ package com.springPP.customer;
 import com.springPP.exception.DuplicateResourceException;
 import com.springPP.exception.NoCustomerDataEditedException;
 import com.springPP.exception.NoCustomerException;
+import com.springPP.exception.PreconditionFailedException;
+import com.springPP.exception.RequestValidationException;
 import com.springPP.exception.ResourceNotFound;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class CustomerService {
 
     private final CustomerDAO customerDAO;
+    private final CustomerCopyImporter customerCopyImporter;
+    private final CustomerSearchDataAccessService customerSearch;
+    private final int maxPageSize;
+    private final int maxBatchSize;
+    private final int maxSearchLimit;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDAO customerDAO) {
+    public CustomerService(CustomerDAO customerDAO,
+                           CustomerCopyImporter customerCopyImporter,
+                           CustomerSearchDataAccessService customerSearch,
+                           @Value("${customer.page.max-size}") int maxPageSize,
+                           @Value("${customer.batch.max-size}") int maxBatchSize,
+                           @Value("${customer.search.max-limit}") int maxSearchLimit) {
         this.customerDAO = customerDAO;
+        this.customerCopyImporter = customerCopyImporter;
+        this.customerSearch = customerSearch;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxSearchLimit = maxSearchLimit;
     }
 
     public List<Customer> getAllCustomers() {
         return customerDAO.selectAllCustomers();
     }
 
-    public Customer getCustomer(Integer customerId) {
+    public CustomerPage getCustomers(String cursor, int size) {
+        return getCustomers(cursor, size, CustomerFilter.NONE, CustomerSort.BY_ID.toString());
+    }
+
+    public CustomerPage getCustomers(String cursor, int size, CustomerFilter filter, String sortText) {
+        if (size < 1 || size > maxPageSize) {
+            throw new RequestValidationException(
+                    "page size must be between 1 and %s".formatted(maxPageSize));
+        }
+        CustomerSort sort = CustomerSort.parse(sortText);
+        if (sort == null) {
+            throw new RequestValidationException(
+                    "invalid sort %s, expected one of id, name, email, age optionally followed by ,asc or ,desc"
+                            .formatted(sortText));
+        }
+        validateFilter(filter);
+        // fetch one extra row to find out whether there is a next page
+        List<Customer> customers;
+        if (filter.isEmpty() && sort.equals(CustomerSort.BY_ID)) {
+            // the plain id walk keeps its own cursor format, so links handed out earlier stay valid
+            customers = customerDAO.selectCustomersAfterId(decodeCursor(cursor), size + 1);
+        } else {
+            customers = customerDAO.selectCustomers(filter, sort, decodeKeysetCursor(cursor, sort), size + 1);
+        }
+        if (customers.size() <= size) {
+            return new CustomerPage(customers, null);
+        }
+        List<Customer> page = customers.subList(0, size);
+        Customer last = page.get(size - 1);
+        return new CustomerPage(page, filter.isEmpty() && sort.equals(CustomerSort.BY_ID)
+                ? encodeCursor(last.getId())
+                : encodeKeysetCursor(last, sort));
+    }
+
+    public List<Customer> searchCustomers(String query, int limit) {
+        String text = query == null ? "" : query.strip();
+        // trigrams need at least three characters to find anything
+        if (text.length() < 3 || text.length() > 100) {
+            throw new RequestValidationException("search query must be between 3 and 100 characters");
+        }
+        if (limit < 1 || limit > maxSearchLimit) {
+            throw new RequestValidationException(
+                    "search limit must be between 1 and %s".formatted(maxSearchLimit));
+        }
+        return customerSearch.searchCustomers(text, limit);
+    }
+
+    public CustomerCollectionVersion getCollectionVersion() {
+        return customerDAO.selectCollectionVersion();
+    }
+
+    public void exportCustomers(Consumer<Customer> action) {
+        customerDAO.forEachCustomer(action);
+    }
+
+    public Customer getCustomer(Long customerId) {
         return customerDAO.selectCustomerById(customerId)
                 .orElseThrow(() -> new ResourceNotFound(
                         "Customer with id %s not found".formatted(customerId)
@@ -30,54 +113,229 @@ public class CustomerService {
     }
 
     public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-        // check if email exists
-        if (customerDAO.existsPersonWithEmail(customerRegistrationRequest.email())){
-            throw new DuplicateResourceException("Customer with email %s already exists"
-                    .formatted(customerRegistrationRequest.email()));
-        }
-        // add
         Customer customer = new Customer(customerRegistrationRequest.name(),
                 customerRegistrationRequest.email(),
                 customerRegistrationRequest.age());
-        customerDAO.insertCustomer(customer);
+        // a single INSERT ... ON CONFLICT replaces the exists-then-insert round trips
+        if (customerDAO.insertCustomerIfEmailAbsent(customer).isEmpty()) {
+            throw new DuplicateResourceException("Customer with email %s already exists"
+                    .formatted(customerRegistrationRequest.email()));
+        }
     }
 
-    public void deleteCustomerById(Integer customerId) {
-        if (!customerDAO.existsCustomerWithId(customerId)) {
-            throw new NoCustomerException("Customer with id %s not found".formatted(customerId));
+    public List<CustomerBatchItemResult> addCustomers(List<CustomerRegistrationRequest> requests) {
+        if (requests.isEmpty() || requests.size() > maxBatchSize) {
+            throw new RequestValidationException(
+                    "batch size must be between 1 and %s".formatted(maxBatchSize));
+        }
+        // one set-based lookup for the whole batch instead of a query per customer
+        Set<String> takenEmails = new HashSet<>(customerDAO.selectExistingEmails(
+                requests.stream().map(CustomerRegistrationRequest::email).filter(Objects::nonNull).toList()));
+
+        List<CustomerBatchItemResult> results = new ArrayList<>(requests.size());
+        List<Customer> customers = new ArrayList<>();
+        List<Integer> customerIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(i);
+            if (request.name() == null || request.email() == null || request.age() == null) {
+                results.add(new CustomerBatchItemResult(i, request.email(),
+                        CustomerBatchItemResult.Status.INVALID, "name, email and age are required"));
+            } else if (!takenEmails.add(request.email())) {
+                results.add(new CustomerBatchItemResult(i, request.email(),
+                        CustomerBatchItemResult.Status.DUPLICATE,
+                        "Customer with email %s already exists".formatted(request.email())));
+            } else {
+                customers.add(new Customer(request.name(), request.email(), request.age()));
+                customerIndexes.add(i);
+                results.add(new CustomerBatchItemResult(i, request.email(),
+                        CustomerBatchItemResult.Status.CREATED, null));
+            }
+        }
+
+        if (!customers.isEmpty()) {
+            try {
+                customerDAO.insertCustomers(customers);
+            } catch (DuplicateKeyException e) {
+                insertRechecked(customers, customerIndexes, results);
+            }
+        }
+        return results;
+    }
+
+    // The first lookup may trust an email index that never saw a stored email, e.g. one written by
+    // another instance. The failed insert has put every email of the batch into the index, so this
+    // lookup reaches the database, and only what was taken in between fails the batch.
+    private void insertRechecked(List<Customer> customers, List<Integer> customerIndexes,
+                                 List<CustomerBatchItemResult> results) {
+        Set<String> takenEmails = customerDAO.selectExistingEmails(
+                customers.stream().map(Customer::getEmail).toList());
+        List<Customer> remaining = new ArrayList<>();
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            if (takenEmails.contains(customer.getEmail())) {
+                int index = customerIndexes.get(i);
+                results.set(index, new CustomerBatchItemResult(index, customer.getEmail(),
+                        CustomerBatchItemResult.Status.DUPLICATE,
+                        "Customer with email %s already exists".formatted(customer.getEmail())));
+            } else {
+                remaining.add(customer);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try {
+            customerDAO.insertCustomers(remaining);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException(
+                    "an email in the batch was registered concurrently, retry the batch");
         }
-        customerDAO.deleteCustomerById(customerId);
     }
 
-    public void updateCustomer(Integer customerId, CustomerEditRequest customerEditRequest) {
-        Customer customer = getCustomer(customerId);
+    public CustomerImportResult importCustomersCsv(InputStream csv) {
+        try {
+            return customerCopyImporter.importCsv(csv);
+        } catch (DataIntegrityViolationException e) {
+            throw new RequestValidationException("invalid import data: " + e.getMostSpecificCause().getMessage());
+        }
+    }
 
-        boolean changes = false;
+    public CustomerImportResult importCustomersNdjson(InputStream ndjson) {
+        try {
+            return customerCopyImporter.importNdjson(ndjson);
+        } catch (DataIntegrityViolationException e) {
+            throw new RequestValidationException("invalid import data: " + e.getMostSpecificCause().getMessage());
+        }
+    }
 
-        if (customerEditRequest.name() != null && !customerEditRequest.name().equals(customer.getName())) {
-            customer.setName(customerEditRequest.name());
-            changes = true;
+    public void deleteCustomerById(Long customerId) {
+        if (customerDAO.deleteCustomerByIdReturning(customerId).isEmpty()) {
+            throw new NoCustomerException("Customer with id %s not found".formatted(customerId));
         }
+    }
+
+    // one statement for the whole batch; ids that were already gone are reported, not an error
+    public CustomerBulkDeleteResult deleteCustomers(List<Long> customerIds) {
+        List<Long> ids = customerIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty() || ids.size() > maxBatchSize) {
+            throw new RequestValidationException(
+                    "batch size must be between 1 and %s".formatted(maxBatchSize));
+        }
+        Set<Long> deleted = new HashSet<>(customerDAO.deleteCustomersByIds(ids));
+        return new CustomerBulkDeleteResult(
+                ids.stream().filter(deleted::contains).toList(),
+                ids.stream().filter(id -> !deleted.contains(id)).toList());
+    }
+
+    // updateCustomer without If-Match for every customer of the batch, all or nothing
+    public CustomerBulkUpdateResult updateCustomers(List<CustomerBulkEditRequest> requests) {
+        if (requests.isEmpty() || requests.size() > maxBatchSize) {
+            throw new RequestValidationException(
+                    "batch size must be between 1 and %s".formatted(maxBatchSize));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (CustomerBulkEditRequest request : requests) {
+            if (request.id() == null || !ids.add(request.id())) {
+                throw new RequestValidationException("every customer in the batch needs its own id");
+            }
+        }
+        try {
+            return customerDAO.updateCustomersIfChanged(requests.stream()
+                    .map(request -> new Customer(request.id(), request.name(), request.email(), request.age()))
+                    .toList());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException(
+                    "an email in the batch is already taken, no customer was updated");
+        }
+    }
 
-        if (customerEditRequest.email() != null && !customerEditRequest.email().equals(customer.getEmail())) {
-            if (customerDAO.existsPersonWithEmail(customerEditRequest.email())) {
-                throw new DuplicateResourceException(
-                        "email already taken"
+    // a non-null expectedVersion makes the update conditional on the row still being at that version
+    public Customer updateCustomer(Long customerId, CustomerEditRequest customerEditRequest, Long expectedVersion) {
+        Customer changes = new Customer(customerId,
+                customerEditRequest.name(),
+                customerEditRequest.email(),
+                customerEditRequest.age(),
+                expectedVersion);
+        try {
+            Optional<Customer> updated = customerDAO.updateCustomerIfChanged(changes);
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException(
+                    "email already taken"
+            );
+        }
+        // nothing was written, find out why only on this failure path
+        if (expectedVersion == null) {
+            if (!customerDAO.existsCustomerWithId(customerId)) {
+                throw new ResourceNotFound(
+                        "Customer with id %s not found".formatted(customerId)
                 );
             }
-            customer.setEmail(customerEditRequest.email());
-            changes = true;
+        } else if (!expectedVersion.equals(getCustomer(customerId).getVersion())) {
+            throw new PreconditionFailedException(
+                    "Customer with id %s is no longer at version %s".formatted(customerId, expectedVersion)
+            );
         }
+        throw new NoCustomerDataEditedException("no data changes found");
+    }
 
-        if (customerEditRequest.age() != null && !customerEditRequest.age().equals(customer.getAge())) {
-            customer.setAge(customerEditRequest.age());
-            changes = true;
+    private static void validateFilter(CustomerFilter filter) {
+        if (filter.minAge() != null && filter.maxAge() != null && filter.minAge() > filter.maxAge()) {
+            throw new RequestValidationException(
+                    "minAge %s is greater than maxAge %s".formatted(filter.minAge(), filter.maxAge()));
         }
+        if ((filter.namePrefix() != null && filter.namePrefix().isEmpty())
+                || (filter.emailPrefix() != null && filter.emailPrefix().isEmpty())) {
+            throw new RequestValidationException("prefix filters must not be empty");
+        }
+    }
+
+    // the sort travels with the position, so a cursor cannot be replayed against another order
+    private static String encodeKeysetCursor(Customer last, CustomerSort sort) {
+        String position = sort + "|" + last.getId() + "|" + sort.field().valueOf(last);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-        if (!changes) {
-            throw new NoCustomerDataEditedException("no data changes found");
+    private static Customer decodeKeysetCursor(String cursor, CustomerSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
         }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.toString())) {
+                throw new RequestValidationException("invalid cursor %s for sort %s".formatted(cursor, sort));
+            }
+            Customer after = new Customer(Long.valueOf(parts[1]), null, null, null);
+            switch (sort.field()) {
+                case NAME -> after.setName(parts[2]);
+                case EMAIL -> after.setEmail(parts[2]);
+                case AGE -> after.setAge(Integer.valueOf(parts[2]));
+                case ID -> {
+                }
+            }
+            return after;
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid cursor %s".formatted(cursor));
+        }
+    }
 
-        customerDAO.updateCustomer(customer);
+    private static String encodeCursor(Long customerId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(customerId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid cursor %s".formatted(cursor));
+        }
     }
 }
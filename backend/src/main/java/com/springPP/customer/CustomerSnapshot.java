@@ -0,0 +1,126 @@
+package com.springPP.customer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Binary image of an OffHeapCustomerStore, little-endian throughout:
+//   header  magic, version, rows, name bytes, email bytes, CRC32 of the body, high-water mark (long)
+//   body    ids, versions, ages, name offsets, email offsets, names, emails, id table, email table
+// The body uses the store's own layout, hash tables included, so loading maps the file
+// and hands slices of it to the store without decoding or rehashing a single row.
+public final class CustomerSnapshot {
+
+    static final int MAGIC = 0x50414e53;
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 32;
+
+    private CustomerSnapshot() {
+    }
+
+    // written to a sibling file and moved into place, so readers never see a partial snapshot
+    public static void write(OffHeapCustomerStore store, Path path) throws IOException {
+        ByteBuffer[] columns = store.columns();
+        CRC32 crc = new CRC32();
+        for (ByteBuffer column : columns) {
+            crc.update(column.duplicate());
+        }
+        ByteBuffer[] buffers = new ByteBuffer[columns.length + 1];
+        buffers[0] = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(store.size())
+                .putInt(columns[5].remaining())
+                .putInt(columns[6].remaining())
+                .putInt((int) crc.getValue())
+                .putLong(store.highWaterMark())
+                .flip();
+        System.arraycopy(columns, 0, buffers, 1, columns.length);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    public static OffHeapCustomerStore read(Path path) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw invalid(path, "unexpected size " + channel.size());
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        if (file.getInt(0) != MAGIC) {
+            throw invalid(path, "not a customer snapshot");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw invalid(path, "unsupported version " + file.getInt(4));
+        }
+        int rows = file.getInt(8);
+        int nameBytes = file.getInt(12);
+        int emailBytes = file.getInt(16);
+        int checksum = file.getInt(20);
+        long highWaterMark = file.getLong(24);
+        if (rows < 0 || nameBytes < 0 || emailBytes < 0) {
+            throw invalid(path, "negative lengths in header");
+        }
+        int slots = OffHeapCustomerStore.tableSlots(rows);
+        long expectedSize = HEADER_BYTES + (long) rows * (2 * Long.BYTES + Integer.BYTES) + 2L * (rows + 1) * Integer.BYTES
+                + nameBytes + emailBytes + 3L * slots * Integer.BYTES;
+        if (expectedSize != file.capacity()) {
+            throw invalid(path, "header does not match a file of %s bytes".formatted(file.capacity()));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(file.slice(HEADER_BYTES, file.capacity() - HEADER_BYTES));
+        if ((int) crc.getValue() != checksum) {
+            throw invalid(path, "checksum mismatch");
+        }
+
+        int offset = HEADER_BYTES;
+        ByteBuffer ids = column(file, offset, rows * Long.BYTES);
+        ByteBuffer versions = column(file, offset += rows * Long.BYTES, rows * Long.BYTES);
+        ByteBuffer ages = column(file, offset += rows * Long.BYTES, rows * Integer.BYTES);
+        ByteBuffer nameOffsets = column(file, offset += rows * Integer.BYTES, (rows + 1) * Integer.BYTES);
+        ByteBuffer emailOffsets = column(file, offset += (rows + 1) * Integer.BYTES, (rows + 1) * Integer.BYTES);
+        ByteBuffer names = column(file, offset += (rows + 1) * Integer.BYTES, nameBytes);
+        ByteBuffer emails = column(file, offset += nameBytes, emailBytes);
+        ByteBuffer idTable = column(file, offset += emailBytes, slots * Integer.BYTES);
+        ByteBuffer emailTable = column(file, offset + slots * Integer.BYTES, 2 * slots * Integer.BYTES);
+        OffHeapCustomerStore store = new OffHeapCustomerStore(
+                rows, ids, versions, ages, nameOffsets, emailOffsets, names, emails, idTable, emailTable);
+        if (store.highWaterMark() != highWaterMark) {
+            throw invalid(path, "high-water mark mismatch");
+        }
+        return store;
+    }
+
+    private static ByteBuffer column(ByteBuffer file, int offset, int length) {
+        return file.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IOException invalid(Path path, String reason) {
+        return new IOException("invalid customer snapshot %s: %s".formatted(path, reason));
+    }
+}
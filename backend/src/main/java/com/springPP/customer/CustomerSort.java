@@ -0,0 +1,68 @@
+package com.springPP.customer;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+// Keyset order of a customer page: the sort field, then id in the same direction as a tiebreak.
+// Strings compare by code unit, which matches the "C" collation the SQL backends sort with.
+public record CustomerSort(Field field, boolean descending) {
+
+    public static final CustomerSort BY_ID = new CustomerSort(Field.ID, false);
+
+    public enum Field {
+        ID("id", Customer::getId),
+        NAME("name", Customer::getName),
+        EMAIL("email", Customer::getEmail),
+        AGE("age", Customer::getAge);
+
+        private final String property;
+        private final Function<Customer, Comparable<?>> value;
+
+        Field(String property, Function<Customer, Comparable<?>> value) {
+            this.property = property;
+            this.value = value;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public Comparable<?> valueOf(Customer customer) {
+            return value.apply(customer);
+        }
+    }
+
+    // "name" or "name,desc"; null when the text names no known field or direction
+    public static CustomerSort parse(String text) {
+        String[] parts = text.split(",", -1);
+        if (parts.length > 2) {
+            return null;
+        }
+        boolean descending = false;
+        if (parts.length == 2) {
+            if (parts[1].equalsIgnoreCase("desc")) {
+                descending = true;
+            } else if (!parts[1].equalsIgnoreCase("asc")) {
+                return null;
+            }
+        }
+        for (Field field : Field.values()) {
+            if (field.property.equals(parts[0])) {
+                return new CustomerSort(field, descending);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return descending ? field.property + ",desc" : field.property;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<Customer> comparator() {
+        Comparator<Customer> ascending = Comparator.comparing(c -> (Comparable) field.valueOf(c));
+        ascending = ascending.thenComparing(Customer::getId);
+        return descending ? ascending.reversed() : ascending;
+    }
+}
@@ -0,0 +1,72 @@
+package com.springPP.customer;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Criteria counterpart of CustomerJDBCDataAccessService.selectCustomers, down to the "C"
+// collation, so both backends filter, order and resume pages identically
+final class CustomerSpecifications {
+
+    private static final String C_COLLATION = "\"C\"";
+
+    private CustomerSpecifications() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Specification<Customer> page(CustomerFilter filter, CustomerSort sort, Customer after) {
+        return (root, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.minAge() != null) {
+                predicates.add(cb.ge(root.get("age"), filter.minAge()));
+            }
+            if (filter.maxAge() != null) {
+                predicates.add(cb.le(root.get("age"), filter.maxAge()));
+            }
+            if (filter.namePrefix() != null) {
+                predicates.add(cb.like(hcb.collate(root.get("name"), C_COLLATION),
+                        CustomerJDBCDataAccessService.likePrefix(filter.namePrefix()), '\\'));
+            }
+            if (filter.emailPrefix() != null) {
+                predicates.add(cb.like(hcb.collate(root.get("email"), C_COLLATION),
+                        CustomerJDBCDataAccessService.likePrefix(filter.emailPrefix()), '\\'));
+            }
+            Expression<Long> id = root.get("id");
+            Expression<Comparable> key = (Expression<Comparable>) sortKey(hcb, root, sort.field());
+            if (after != null) {
+                if (sort.field() == CustomerSort.Field.ID) {
+                    predicates.add(sort.descending() ? cb.lt(id, after.getId()) : cb.gt(id, after.getId()));
+                } else {
+                    // (key, id) > (value, afterId), spelled so the key bound can still use the index
+                    Comparable value = sort.field().valueOf(after);
+                    predicates.add(sort.descending()
+                            ? cb.and(cb.lessThanOrEqualTo(key, value),
+                                     cb.or(cb.lessThan(key, value), cb.lt(id, after.getId())))
+                            : cb.and(cb.greaterThanOrEqualTo(key, value),
+                                     cb.or(cb.greaterThan(key, value), cb.gt(id, after.getId()))));
+                }
+            }
+            if (sort.field() == CustomerSort.Field.ID) {
+                query.orderBy(sort.descending() ? cb.desc(id) : cb.asc(id));
+            } else {
+                query.orderBy(sort.descending()
+                        ? List.of(cb.desc(key), cb.desc(id))
+                        : List.of(cb.asc(key), cb.asc(id)));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Expression<?> sortKey(HibernateCriteriaBuilder hcb, Root<Customer> root, CustomerSort.Field field) {
+        return switch (field) {
+            case ID, AGE -> root.get(field.property());
+            case NAME, EMAIL -> hcb.collate(root.get(field.property()), C_COLLATION);
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+// emails are added to the index before the write so a concurrent check never
+// skips the database for a row that is about to exist
+class EmailIndexedCustomerDAO extends ForwardingCustomerDAO {
+
+    private final CustomerEmailIndex emailIndex;
+    private final Counter skippedChecks;
+    private final Counter delegatedChecks;
+
+    EmailIndexedCustomerDAO(CustomerDAO delegate, CustomerEmailIndex emailIndex, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.emailIndex = emailIndex;
+        this.skippedChecks = meterRegistry.counter("customer.email.index.checks", "result", "skipped");
+        this.delegatedChecks = meterRegistry.counter("customer.email.index.checks", "result", "delegated");
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        if (emailIndex.isReady() && !emailIndex.mightContain(email)) {
+            skippedChecks.increment();
+            return false;
+        }
+        delegatedChecks.increment();
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        if (!emailIndex.isReady()) {
+            delegatedChecks.increment(emails.size());
+            return delegate.selectExistingEmails(emails);
+        }
+        List<String> candidates = emails.stream()
+                .filter(emailIndex::mightContain)
+                .toList();
+        skippedChecks.increment(emails.size() - candidates.size());
+        delegatedChecks.increment(candidates.size());
+        return candidates.isEmpty() ? Set.of() : delegate.selectExistingEmails(candidates);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        emailIndex.put(customer.getEmail());
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        emailIndex.put(customer.getEmail());
+        return delegate.insertCustomerIfEmailAbsent(customer);
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        customers.forEach(customer -> emailIndex.put(customer.getEmail()));
+        delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public void updateCustomer(Customer updatedCustomer) {
+        emailIndex.put(updatedCustomer.getEmail());
+        delegate.updateCustomer(updatedCustomer);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        if (changes.getEmail() != null) {
+            emailIndex.put(changes.getEmail());
+        }
+        return delegate.updateCustomerIfChanged(changes);
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        changes.stream()
+                .map(Customer::getEmail)
+                .filter(Objects::nonNull)
+                .forEach(emailIndex::put);
+        return delegate.updateCustomersIfChanged(changes);
+    }
+}
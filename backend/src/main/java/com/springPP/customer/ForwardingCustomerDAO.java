@@ -0,0 +1,106 @@
+package com.springPP.customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+abstract class ForwardingCustomerDAO implements CustomerDAO {
+
+    protected final CustomerDAO delegate;
+
+    protected ForwardingCustomerDAO(CustomerDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfterId(Long customerId, int limit) {
+        return delegate.selectCustomersAfterId(customerId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerFilter filter, CustomerSort sort, Customer after, int limit) {
+        return delegate.selectCustomers(filter, sort, after, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        return delegate.selectCustomerById(customerId);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public Optional<Customer> insertCustomerIfEmailAbsent(Customer customer) {
+        return delegate.insertCustomerIfEmailAbsent(customer);
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        delegate.deleteCustomerById(customerId);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerByIdReturning(Long customerId) {
+        return delegate.deleteCustomerByIdReturning(customerId);
+    }
+
+    @Override
+    public void updateCustomer(Customer updatedCustomer) {
+        delegate.updateCustomer(updatedCustomer);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomerIfChanged(Customer changes) {
+        return delegate.updateCustomerIfChanged(changes);
+    }
+
+    @Override
+    public List<Long> deleteCustomersByIds(Collection<Long> customerIds) {
+        return delegate.deleteCustomersByIds(customerIds);
+    }
+
+    @Override
+    public CustomerBulkUpdateResult updateCustomersIfChanged(List<Customer> changes) {
+        return delegate.updateCustomersIfChanged(changes);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return delegate.selectExistingEmails(emails);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
+        return delegate.existsCustomerWithId(customerId);
+    }
+
+    @Override
+    public CustomerCollectionVersion selectCollectionVersion() {
+        return delegate.selectCollectionVersion();
+    }
+}
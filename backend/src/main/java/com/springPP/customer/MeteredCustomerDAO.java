@@ -0,0 +1,121 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Times every CustomerDAO call of one backend as customer.dao.calls{backend,method,outcome,exception}
+// and records the rows each read returns as customer.dao.rows. Success meters are resolved up
+// front, so a call costs one map lookup and two nanoTime reads on top of the delegate.
+final class MeteredCustomerDAO implements InvocationHandler {
+
+    private final CustomerDAO delegate;
+    private final String backend;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodMeters> meters = new HashMap<>();
+
+    private MeteredCustomerDAO(CustomerDAO delegate, String backend, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+        for (Method method : CustomerDAO.class.getMethods()) {
+            meters.put(method, new MethodMeters(timer(method, "success", "none"), rowsSummary(method)));
+        }
+    }
+
+    static CustomerDAO wrap(CustomerDAO delegate, String backend, MeterRegistry meterRegistry) {
+        return (CustomerDAO) Proxy.newProxyInstance(
+                CustomerDAO.class.getClassLoader(),
+                new Class<?>[]{CustomerDAO.class},
+                new MeteredCustomerDAO(delegate, backend, meterRegistry));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            return invokeDelegate(method, args);
+        }
+        long[] streamed = null;
+        if (method.getName().equals("forEachCustomer")) {
+            long[] count = streamed = new long[1];
+            Consumer<Customer> action = castConsumer(args[0]);
+            args = new Object[]{(Consumer<Customer>) customer -> {
+                count[0]++;
+                action.accept(customer);
+            }};
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invokeDelegate(method, args);
+        } catch (Throwable e) {
+            timer(method, "error", e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        methodMeters.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (methodMeters.rows() != null) {
+            methodMeters.rows().record(streamed != null ? streamed[0] : rowCount(result));
+        }
+        return result;
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Timer timer(Method method, String outcome, String exception) {
+        return Timer.builder("customer.dao.calls")
+                .tag("backend", backend)
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary rowsSummary(Method method) {
+        boolean returnsRows = Collection.class.isAssignableFrom(method.getReturnType())
+                || method.getReturnType() == Optional.class
+                || method.getName().equals("forEachCustomer");
+        if (!returnsRows) {
+            return null;
+        }
+        return DistributionSummary.builder("customer.dao.rows")
+                .tag("backend", backend)
+                .tag("method", method.getName())
+                .serviceLevelObjectives(1, 10, 100, 1_000, 10_000, 100_000)
+                .register(meterRegistry);
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return result instanceof Optional<?> optional && optional.isPresent() ? 1 : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Customer> castConsumer(Object action) {
+        return (Consumer<Customer>) action;
+    }
+
+    private record MethodMeters(Timer success, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,359 @@
+package com.springPP.customer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable customer table in direct buffers: fixed-width id, version and age columns, UTF-8
+// arenas for names and emails, and open-addressing hash tables that map ids and
+// emails to row numbers. Rows are kept in ascending id order for keyset pages.
+public final class OffHeapCustomerStore {
+
+    private static final int NOT_FOUND = -1;
+
+    private final int size;
+    private final ByteBuffer ids;
+    private final ByteBuffer versions;
+    private final ByteBuffer ages;
+    private final ByteBuffer nameOffsets;
+    private final ByteBuffer emailOffsets;
+    private final ByteBuffer names;
+    private final ByteBuffer emails;
+    // slot = row + 1, 0 marks an empty slot
+    private final ByteBuffer idTable;
+    private final int idMask;
+    // two ints per slot: email hash, row + 1
+    private final ByteBuffer emailTable;
+    private final int emailMask;
+
+    // buffers must be little-endian; the snapshot loader passes slices of the mapped file
+    OffHeapCustomerStore(int size, ByteBuffer ids, ByteBuffer versions, ByteBuffer ages,
+                         ByteBuffer nameOffsets, ByteBuffer emailOffsets,
+                         ByteBuffer names, ByteBuffer emails,
+                         ByteBuffer idTable, ByteBuffer emailTable) {
+        this.size = size;
+        this.ids = ids;
+        this.versions = versions;
+        this.ages = ages;
+        this.nameOffsets = nameOffsets;
+        this.emailOffsets = emailOffsets;
+        this.names = names;
+        this.emails = emails;
+        this.idTable = idTable;
+        this.idMask = tableSlots(size) - 1;
+        this.emailTable = emailTable;
+        this.emailMask = tableSlots(size) - 1;
+    }
+
+    private static OffHeapCustomerStore indexed(int size, ByteBuffer ids, ByteBuffer versions, ByteBuffer ages,
+                                                ByteBuffer nameOffsets, ByteBuffer emailOffsets,
+                                                ByteBuffer names, ByteBuffer emails) {
+        int slots = tableSlots(size);
+        OffHeapCustomerStore store = new OffHeapCustomerStore(size, ids, versions, ages, nameOffsets, emailOffsets, names, emails,
+                ByteBuffer.allocateDirect(slots * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN),
+                ByteBuffer.allocateDirect(slots * 2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        for (int row = 0; row < size; row++) {
+            store.index(row);
+        }
+        return store;
+    }
+
+    private void index(int row) {
+        int slot = mix(idAt(row)) & idMask;
+        while (idTable.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & idMask;
+        }
+        idTable.putInt(slot * Integer.BYTES, row + 1);
+
+        int hash = hash(emails, emailOffset(row), emailLength(row));
+        slot = hash & emailMask;
+        while (emailTable.getInt(slot * 2 * Integer.BYTES + Integer.BYTES) != 0) {
+            slot = (slot + 1) & emailMask;
+        }
+        emailTable.putInt(slot * 2 * Integer.BYTES, hash);
+        emailTable.putInt(slot * 2 * Integer.BYTES + Integer.BYTES, row + 1);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static OffHeapCustomerStore empty() {
+        return builder().build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // largest id in the store, 0 when empty
+    public long highWaterMark() {
+        return size == 0 ? 0 : idAt(size - 1);
+    }
+
+    public long idAt(int row) {
+        return ids.getLong(row * Long.BYTES);
+    }
+
+    public long versionAt(int row) {
+        return versions.getLong(row * Long.BYTES);
+    }
+
+    public Customer customerAt(int row) {
+        return new Customer(
+                idAt(row),
+                string(names, nameOffsets, row),
+                string(emails, emailOffsets, row),
+                ages.getInt(row * Integer.BYTES),
+                versionAt(row)
+        );
+    }
+
+    public int rowOfId(long id) {
+        int slot = mix(id) & idMask;
+        int entry;
+        while ((entry = idTable.getInt(slot * Integer.BYTES)) != 0) {
+            if (idAt(entry - 1) == id) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & idMask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int rowOfEmail(String email) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(ByteBuffer.wrap(bytes), 0, bytes.length);
+        int slot = hash & emailMask;
+        int entry;
+        while ((entry = emailTable.getInt(slot * 2 * Integer.BYTES + Integer.BYTES)) != 0) {
+            int row = entry - 1;
+            if (emailTable.getInt(slot * 2 * Integer.BYTES) == hash && emailEquals(row, bytes)) {
+                return row;
+            }
+            slot = (slot + 1) & emailMask;
+        }
+        return NOT_FOUND;
+    }
+
+    // first row whose id is greater than the given one
+    public int firstRowAfterId(long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idAt(mid) <= id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public long offHeapBytes() {
+        return (long) ids.capacity() + versions.capacity() + ages.capacity() + nameOffsets.capacity() + emailOffsets.capacity()
+                + names.capacity() + emails.capacity() + idTable.capacity() + emailTable.capacity();
+    }
+
+    // copies the columns into a new store; the appended rows must all be newer than highWaterMark()
+    public OffHeapCustomerStore withAppended(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return this;
+        }
+        if (customers.get(0).getId() <= highWaterMark()) {
+            throw new IllegalArgumentException("customer ids must be ascending, got %s after %s"
+                    .formatted(customers.get(0).getId(), highWaterMark()));
+        }
+        Builder builder = builder();
+        customers.forEach(builder::add);
+        OffHeapCustomerStore delta = builder.build();
+        return indexed(
+                size + delta.size,
+                concat(ids, size * Long.BYTES, delta.ids, delta.size * Long.BYTES),
+                concat(versions, size * Long.BYTES, delta.versions, delta.size * Long.BYTES),
+                concat(ages, size * Integer.BYTES, delta.ages, delta.size * Integer.BYTES),
+                concatOffsets(nameOffsets, size, delta.nameOffsets, delta.size),
+                concatOffsets(emailOffsets, size, delta.emailOffsets, delta.size),
+                concat(names, arenaLength(nameOffsets, size), delta.names, arenaLength(delta.nameOffsets, delta.size)),
+                concat(emails, arenaLength(emailOffsets, size), delta.emails, arenaLength(delta.emailOffsets, delta.size))
+        );
+    }
+
+    // ids, versions, ages, name offsets, email offsets, names, emails, id table, email table;
+    // each trimmed to its used length
+    ByteBuffer[] columns() {
+        return new ByteBuffer[]{
+                ids.slice(0, size * Long.BYTES),
+                versions.slice(0, size * Long.BYTES),
+                ages.slice(0, size * Integer.BYTES),
+                nameOffsets.slice(0, (size + 1) * Integer.BYTES),
+                emailOffsets.slice(0, (size + 1) * Integer.BYTES),
+                names.slice(0, arenaLength(nameOffsets, size)),
+                emails.slice(0, arenaLength(emailOffsets, size)),
+                idTable.slice(0, idTable.capacity()),
+                emailTable.slice(0, emailTable.capacity())
+        };
+    }
+
+    private int emailOffset(int row) {
+        return emailOffsets.getInt(row * Integer.BYTES);
+    }
+
+    private int emailLength(int row) {
+        return emailOffsets.getInt((row + 1) * Integer.BYTES) - emailOffset(row);
+    }
+
+    private boolean emailEquals(int row, byte[] bytes) {
+        int offset = emailOffset(row);
+        if (emailLength(row) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (emails.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer arena, ByteBuffer offsets, int row) {
+        int offset = offsets.getInt(row * Integer.BYTES);
+        byte[] bytes = new byte[offsets.getInt((row + 1) * Integer.BYTES) - offset];
+        arena.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int arenaLength(ByteBuffer offsets, int size) {
+        return offsets.getInt(size * Integer.BYTES);
+    }
+
+    private static ByteBuffer concat(ByteBuffer first, int firstBytes, ByteBuffer second, int secondBytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(1, firstBytes + secondBytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(first.slice(0, firstBytes)).put(second.slice(0, secondBytes));
+        return buffer.clear();
+    }
+
+    // the second offsets column is shifted past the end of the first arena
+    private static ByteBuffer concatOffsets(ByteBuffer first, int firstSize, ByteBuffer second, int secondSize) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((firstSize + secondSize + 1) * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(first.slice(0, firstSize * Integer.BYTES));
+        int base = arenaLength(first, firstSize);
+        for (int i = 0; i <= secondSize; i++) {
+            buffer.putInt(base + second.getInt(i * Integer.BYTES));
+        }
+        return buffer.clear();
+    }
+
+    // tables stay at most half full so probe sequences remain short
+    static int tableSlots(int size) {
+        return Integer.highestOneBit(Math.max(2, size) * 2 - 1) * 2;
+    }
+
+    private static int mix(long value) {
+        return mix((int) (value ^ (value >>> 32)));
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // 32-bit FNV-1a over the UTF-8 bytes
+    private static int hash(ByteBuffer bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes.get(offset + i) & 0xff;
+            hash *= 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    public static final class Builder {
+
+        private int size;
+        private long[] ids = new long[1024];
+        private long[] versions = new long[1024];
+        private int[] ages = new int[1024];
+        private int[] nameOffsets = new int[1025];
+        private int[] emailOffsets = new int[1025];
+        private ByteBuffer names = ByteBuffer.allocate(16 * 1024);
+        private ByteBuffer emails = ByteBuffer.allocate(16 * 1024);
+
+        private Builder() {
+        }
+
+        // rows must arrive in ascending id order, as forEachCustomer delivers them
+        public Builder add(Customer customer) {
+            if (size > 0 && customer.getId() <= ids[size - 1]) {
+                throw new IllegalArgumentException(
+                        "customer ids must be ascending, got %s after %s".formatted(customer.getId(), ids[size - 1]));
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+                ages = Arrays.copyOf(ages, size * 2);
+                nameOffsets = Arrays.copyOf(nameOffsets, size * 2 + 1);
+                emailOffsets = Arrays.copyOf(emailOffsets, size * 2 + 1);
+            }
+            ids[size] = customer.getId();
+            // like the column default, a customer that was never written starts at version 0
+            versions[size] = customer.getVersion() == null ? 0 : customer.getVersion();
+            ages[size] = customer.getAge();
+            names = append(names, customer.getName());
+            emails = append(emails, customer.getEmail());
+            size++;
+            nameOffsets[size] = names.position();
+            emailOffsets[size] = emails.position();
+            return this;
+        }
+
+        public OffHeapCustomerStore build() {
+            return indexed(
+                    size,
+                    direct(ids, size),
+                    direct(versions, size),
+                    direct(ages, size),
+                    direct(nameOffsets, size + 1),
+                    direct(emailOffsets, size + 1),
+                    direct(names),
+                    direct(emails)
+            );
+        }
+
+        private static ByteBuffer append(ByteBuffer arena, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (arena.remaining() < bytes.length) {
+                long capacity = Math.max((long) arena.capacity() * 2, (long) arena.position() + bytes.length);
+                ByteBuffer grown = ByteBuffer.allocate(Math.toIntExact(capacity));
+                grown.put(arena.flip());
+                arena = grown;
+            }
+            return arena.put(bytes);
+        }
+
+        private static ByteBuffer direct(int[] values, int length) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(1, length) * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asIntBuffer().put(values, 0, length);
+            return buffer;
+        }
+
+        private static ByteBuffer direct(long[] values, int length) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(1, length) * Long.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asLongBuffer().put(values, 0, length);
+            return buffer;
+        }
+
+        private static ByteBuffer direct(ByteBuffer arena) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(1, arena.position()));
+            buffer.put(arena.flip());
+            return buffer.clear();
+        }
+    }
+}
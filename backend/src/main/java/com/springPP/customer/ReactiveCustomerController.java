@@ -0,0 +1,51 @@
+package com.springPP.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerController {
+
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @GetMapping
+    public Flux<Customer> getCustomers() {
+        return customerService.getAllCustomers();
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> exportCustomers() {
+        return customerService.getAllCustomers();
+    }
+
+    @GetMapping("{customerId}")
+    public Mono<Customer> getCustomer(@PathVariable("customerId") Long customerId) {
+        return customerService.getCustomer(customerId);
+    }
+
+    @PostMapping
+    public Mono<Void> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
+        return customerService.addCustomer(request);
+    }
+
+    @DeleteMapping("{customerId}")
+    public Mono<Void> deleteCustomerById(@PathVariable("customerId") Long customerId) {
+        return customerService.deleteCustomerById(customerId);
+    }
+
+    @PutMapping("{customerId}")
+    public Mono<Void> updateCustomer(
+            @PathVariable("customerId") Long customerId,
+            @RequestBody CustomerEditRequest request) {
+        return customerService.updateCustomer(customerId, request);
+    }
+}
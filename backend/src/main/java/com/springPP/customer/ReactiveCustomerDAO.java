@@ -0,0 +1,13 @@
+package com.springPP.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDAO {
+    Flux<Customer> selectAllCustomers();
+    Mono<Customer> selectCustomerById(Long customerId);
+    Mono<Customer> insertCustomerIfEmailAbsent(Customer customer);
+    Mono<Customer> deleteCustomerByIdReturning(Long customerId);
+    Mono<Customer> updateCustomerIfChanged(Customer changes);
+    Mono<Boolean> existsCustomerWithId(Long customerId);
+}
@@ -0,0 +1,69 @@
+package com.springPP.customer;
+
+import com.springPP.exception.DuplicateResourceException;
+import com.springPP.exception.NoCustomerDataEditedException;
+import com.springPP.exception.NoCustomerException;
+import com.springPP.exception.ResourceNotFound;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDAO customerDAO;
+
+    public ReactiveCustomerService(ReactiveCustomerDAO customerDAO) {
+        this.customerDAO = customerDAO;
+    }
+
+    public Flux<Customer> getAllCustomers() {
+        return customerDAO.selectAllCustomers();
+    }
+
+    public Mono<Customer> getCustomer(Long customerId) {
+        return customerDAO.selectCustomerById(customerId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFound(
+                        "Customer with id %s not found".formatted(customerId)
+                )));
+    }
+
+    public Mono<Void> addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+        Customer customer = new Customer(customerRegistrationRequest.name(),
+                customerRegistrationRequest.email(),
+                customerRegistrationRequest.age());
+        return customerDAO.insertCustomerIfEmailAbsent(customer)
+                .switchIfEmpty(Mono.error(() -> new DuplicateResourceException(
+                        "Customer with email %s already exists".formatted(customerRegistrationRequest.email())
+                )))
+                .then();
+    }
+
+    public Mono<Void> deleteCustomerById(Long customerId) {
+        return customerDAO.deleteCustomerByIdReturning(customerId)
+                .switchIfEmpty(Mono.error(() -> new NoCustomerException(
+                        "Customer with id %s not found".formatted(customerId)
+                )))
+                .then();
+    }
+
+    public Mono<Void> updateCustomer(Long customerId, CustomerEditRequest customerEditRequest) {
+        Customer changes = new Customer(customerId,
+                customerEditRequest.name(),
+                customerEditRequest.email(),
+                customerEditRequest.age());
+        return customerDAO.updateCustomerIfChanged(changes)
+                .onErrorMap(DuplicateKeyException.class, e -> new DuplicateResourceException(
+                        "email already taken"
+                ))
+                // nothing was written, find out why only on this failure path
+                .switchIfEmpty(Mono.defer(() -> customerDAO.existsCustomerWithId(customerId)
+                        .flatMap(exists -> Mono.error(exists
+                                ? new NoCustomerDataEditedException("no data changes found")
+                                : new ResourceNotFound("Customer with id %s not found".formatted(customerId))))))
+                .then();
+    }
+}
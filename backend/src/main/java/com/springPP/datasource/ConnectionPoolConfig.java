@@ -0,0 +1,69 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    // sizes the pool after Boot has bound spring.datasource.hikari and before the connection limiter
+    // reads the size; the leak detector goes right around the limiter, below read/write routing
+    @Bean
+    static BeanPostProcessor connectionPoolPostProcessor(Environment environment) {
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    size(hikariDataSource, environment);
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                Duration leakDetectionThreshold = environment.getRequiredProperty(
+                        "customer.datasource.pool.leak-detection-threshold", Duration.class);
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                        && !leakDetectionThreshold.isZero()) {
+                    return new LeakDetectingDataSource(dataSource, leakDetectionThreshold);
+                }
+                return bean;
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE + 1;
+            }
+        };
+    }
+
+    // A connection only does work while the database has a core and a disk for it, so past a
+    // couple of connections per core more only queue inside Postgres instead of in the pool.
+    // Capped by this instance's share of max_connections; an explicit maximum-pool-size wins
+    static void size(HikariDataSource hikariDataSource, Environment environment) {
+        if (environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+            return;
+        }
+        int connectionsPerCore = environment.getRequiredProperty(
+                "customer.datasource.pool.connections-per-core", Integer.class);
+        int maxConnections = environment.getRequiredProperty(
+                "customer.datasource.pool.max-connections", Integer.class);
+        int size = poolSize(Runtime.getRuntime().availableProcessors(), connectionsPerCore, maxConnections);
+        hikariDataSource.setMaximumPoolSize(size);
+        hikariDataSource.setMinimumIdle(size);
+    }
+
+    static int poolSize(int cores, int connectionsPerCore, int maxConnections) {
+        return Math.max(2, Math.min(cores * connectionsPerCore + 1, maxConnections));
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+    }
+}
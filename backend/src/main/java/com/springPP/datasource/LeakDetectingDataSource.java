@@ -0,0 +1,151 @@
+package com.springPP.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Remembers which application method borrowed each connection, for DAO calls the CustomerDAO
+// implementation method, and logs a connection held longer than the threshold once, naming that
+// method, then again when it finally comes back. Hikari's own leak detection only has a stack
+// trace to offer and stays off. Off by default: the email index warm-up and long NDJSON exports
+// hold one connection for as long as they stream, which is not a leak.
+public class LeakDetectingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LeakDetectingDataSource.class);
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long thresholdNanos;
+    private final Map<Connection, Borrow> borrowed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public LeakDetectingDataSource(DataSource targetDataSource, Duration threshold) {
+        super(targetDataSource);
+        this.thresholdNanos = threshold.toNanos();
+        long sweepMillis = Math.max(1, threshold.toMillis() / 2);
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-leak-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracked(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracked(super.getConnection(username, password));
+    }
+
+    // the wrapper is the bean Spring destroys, so it closes the pool underneath as well
+    @Override
+    public void close() throws Exception {
+        sweeper.shutdownNow();
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    public int borrowedConnections() {
+        return borrowed.size();
+    }
+
+    void sweep() {
+        long now = System.nanoTime();
+        borrowed.values().forEach(borrow -> {
+            if (!borrow.reported && now - borrow.borrowedAt > thresholdNanos) {
+                borrow.reported = true;
+                log.warn("apparent connection leak: borrowed by {} on thread {} {} ms ago and not returned",
+                        borrow.borrower, borrow.thread, TimeUnit.NANOSECONDS.toMillis(now - borrow.borrowedAt));
+            }
+        });
+    }
+
+    // the innermost application frame that is not one of the DataSource wrappers
+    static String borrower() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.springPP.")
+                        && !DataSource.class.isAssignableFrom(frame.getDeclaringClass()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getDeclaringClass().getSimpleName();
+                    int proxySuffix = className.indexOf("$$");
+                    return (proxySuffix < 0 ? className : className.substring(0, proxySuffix))
+                            + "." + frame.getMethodName();
+                })
+                .orElse("unknown"));
+    }
+
+    private Connection tracked(Connection connection) {
+        Borrow borrow = new Borrow(borrower(), Thread.currentThread().getName(), System.nanoTime());
+        Connection proxyConnection = (Connection) Proxy.newProxyInstance(
+                LeakDetectingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                            break;
+                        case "isWrapperFor":
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return true;
+                            }
+                            break;
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (borrowed.remove((Connection) proxy) != null && borrow.reported) {
+                                    log.info("leaked connection borrowed by {} returned after {} ms", borrow.borrower,
+                                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - borrow.borrowedAt));
+                                }
+                            }
+                            return null;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        borrowed.put(proxyConnection, borrow);
+        return proxyConnection;
+    }
+
+    private static final class Borrow {
+
+        private final String borrower;
+        private final String thread;
+        private final long borrowedAt;
+        private volatile boolean reported;
+
+        private Borrow(String borrower, String thread, long borrowedAt) {
+            this.borrower = borrower;
+            this.thread = thread;
+            this.borrowedAt = borrowedAt;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.springPP.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Statements executed on one thread while a request is in flight. QueryStatsFilter opens
+// and closes it, QueryStatsListener feeds it; threads without open stats record nothing.
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int statements;
+    private long elapsedNanos;
+
+    static QueryStats open() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    void record(Iterable<String> sql, long elapsedNanos) {
+        statements++;
+        this.elapsedNanos += elapsedNanos;
+        for (String query : sql) {
+            executionsBySql.merge(query, 1, Integer::sum);
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public Duration dbTime() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    public Optional<Map.Entry<String, Integer>> mostRepeated() {
+        return executionsBySql.entrySet().stream().max(Map.Entry.comparingByValue());
+    }
+}
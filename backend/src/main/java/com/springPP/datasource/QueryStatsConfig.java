@@ -0,0 +1,43 @@
+package com.springPP.datasource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "customer.datasource.query-stats.enabled", havingValue = "true")
+public class QueryStatsConfig {
+
+    // not Ordered, so it runs after the ordered connection limiter and wraps the outermost DataSource
+    @Bean
+    static BeanPostProcessor queryStatsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(new QueryStatsListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public QueryStatsFilter queryStatsFilter(
+            @Value("${customer.datasource.query-stats.max-statements}") int maxStatements,
+            @Value("${customer.datasource.query-stats.max-db-time}") Duration maxDbTime,
+            @Value("${customer.datasource.query-stats.max-repeated-statements}") int maxRepeatedStatements) {
+        return new QueryStatsFilter(maxStatements, maxDbTime, maxRepeatedStatements);
+    }
+}
@@ -0,0 +1,82 @@
+package com.springPP.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// One log line per request that touched the database: WARN when it crossed a threshold,
+// DEBUG otherwise. The repeated-statement check is what catches N+1 access patterns.
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private final int maxStatements;
+    private final Duration maxDbTime;
+    private final int maxRepeatedStatements;
+
+    public QueryStatsFilter(int maxStatements, Duration maxDbTime, int maxRepeatedStatements) {
+        this.maxStatements = maxStatements;
+        this.maxDbTime = maxDbTime;
+        this.maxRepeatedStatements = maxRepeatedStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStats stats = QueryStats.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats.close();
+            report(request, response, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, QueryStats stats) {
+        if (stats.statements() == 0) {
+            return;
+        }
+        Map.Entry<String, Integer> repeated = stats.mostRepeated().orElseThrow();
+        List<String> flags = new ArrayList<>();
+        if (stats.statements() > maxStatements) {
+            flags.add("too-many-statements");
+        }
+        if (stats.dbTime().compareTo(maxDbTime) > 0) {
+            flags.add("slow-db-time");
+        }
+        if (repeated.getValue() > maxRepeatedStatements) {
+            flags.add("repeated-statement");
+        }
+        if (flags.isEmpty() && !log.isDebugEnabled()) {
+            return;
+        }
+        String message = "query-stats method={} uri={} status={} statements={} db_time_ms={} "
+                + "top_statement_executions={} top_statement=\"{}\" flags={}";
+        Object[] arguments = {
+                request.getMethod(),
+                request.getRequestURI(),
+                response.getStatus(),
+                stats.statements(),
+                "%.3f".formatted(stats.dbTime().toNanos() / 1e6),
+                repeated.getValue(),
+                // keeps multi-line SQL on the summary's single line
+                repeated.getKey().replaceAll("\\s+", " "),
+                flags.isEmpty() ? "none" : String.join(",", flags)
+        };
+        if (flags.isEmpty()) {
+            log.debug(message, arguments);
+        } else {
+            log.warn(message, arguments);
+        }
+    }
+}
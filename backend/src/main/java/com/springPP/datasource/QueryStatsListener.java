@@ -0,0 +1,30 @@
+package com.springPP.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+// ExecutionInfo only carries millisecond timings, so the listener takes its own nanoTime
+class QueryStatsListener implements QueryExecutionListener {
+
+    private static final String STARTED_AT = "queryStats.startedAt";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (QueryStats.current() != null) {
+            execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        if (stats == null || startedAt == null) {
+            return;
+        }
+        stats.record(queryInfoList.stream().map(QueryInfo::getQuery).toList(), System.nanoTime() - startedAt);
+    }
+}
@@ -0,0 +1,110 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "customer.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaPool replicaPool(@Value("${customer.datasource.replicas.urls}") List<String> urls,
+                                   @Value("${customer.datasource.replicas.connection-timeout}") Duration connectionTimeout,
+                                   @Value("${customer.datasource.replicas.max-lag}") Duration maxLag,
+                                   @Value("${customer.datasource.replicas.health-check-interval}") Duration healthCheckInterval,
+                                   DataSourceProperties dataSourceProperties,
+                                   Environment environment,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            // same pool settings as the primary, but give up quickly so a dead replica falls back
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            ConnectionPoolConfig.size(replica, environment);
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry ->
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaPool replicaPool = new ReplicaPool(replicas, maxLag, healthCheckInterval);
+        meterRegistry.ifAvailable(registry -> replicaPool.names().forEach(name ->
+                Gauge.builder("customer.datasource.replica.healthy", replicaPool, pool -> pool.isHealthy(name) ? 1 : 0)
+                        .tag("replica", name)
+                        .register(registry)));
+        return replicaPool;
+    }
+
+    // after the ordered connection limiter, so only the primary is limited, and before the
+    // unordered query-stats proxy, so statements on replicas are counted too
+    @Bean
+    static BeanPostProcessor readWriteRoutingDataSourcePostProcessor(ObjectProvider<ReplicaPool> replicaPool) {
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return new ClosingLazyConnectionDataSourceProxy(
+                            new ReadWriteRoutingDataSource(dataSource, replicaPool.getObject()));
+                }
+                return bean;
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${customer.datasource.replicas.read-your-writes-window}") Duration window) {
+        return new ReadYourWritesFilter(window, Clock.systemUTC());
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+    }
+
+    // the proxy becomes the dataSource bean, so Spring's close has to reach the primary through it
+    private static final class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy
+            implements AutoCloseable {
+
+        private ClosingLazyConnectionDataSourceProxy(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (getTargetDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
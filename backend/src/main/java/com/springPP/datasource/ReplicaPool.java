@@ -0,0 +1,132 @@
+package com.springPP.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read replicas behind one round-robin cursor. A replica leaves the rotation when its health
+// check fails, when it lags more than maxLag behind, or when handing out a connection fails;
+// the next passing check puts it back. With no healthy replica connection() is empty and the
+// caller falls back to the primary.
+public class ReplicaPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+
+    // on an idle primary the last replayed commit grows old without the replica falling behind,
+    // so a replica that has replayed everything it received counts as current
+    private static final String LAG_SECONDS = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp()) END
+            """;
+
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks;
+
+    // a zero interval leaves health checks to the caller
+    public ReplicaPool(Map<String, DataSource> replicas, Duration maxLag, Duration healthCheckInterval) {
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        checkHealth();
+        if (healthCheckInterval.isZero()) {
+            healthChecks = null;
+        } else {
+            healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecks.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckInterval.toMillis(), healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Optional<Connection> connection() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                try {
+                    return Optional.of(replica.dataSource.getConnection());
+                } catch (SQLException | RuntimeException e) {
+                    markHealthy(replica, false, e.getMessage());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet lag = statement.executeQuery(LAG_SECONDS)) {
+                lag.next();
+                double seconds = lag.getDouble(1);
+                boolean current = !lag.wasNull() && seconds <= maxLagSeconds;
+                markHealthy(replica, current, current ? null : "lagging %.1f s behind".formatted(seconds));
+            } catch (SQLException | RuntimeException e) {
+                markHealthy(replica, false, e.getMessage());
+            }
+        }
+    }
+
+    public List<String> names() {
+        return replicas.stream().map(replica -> replica.name).toList();
+    }
+
+    public boolean isHealthy(String name) {
+        return replicas.stream().anyMatch(replica -> replica.name.equals(name) && replica.healthy);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static void markHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy != healthy) {
+            if (healthy) {
+                log.info("replica {} is back in rotation", replica.name);
+            } else {
+                log.warn("replica {} taken out of rotation: {}", replica.name, reason);
+            }
+        }
+        replica.healthy = healthy;
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.springPP.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// the method is allowed on the resource, it is the store behind it that cannot take the write
+@ResponseStatus (code = HttpStatus.CONFLICT)
+public class ReadOnlyStoreException extends UnsupportedOperationException{
+    public ReadOnlyStoreException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1 @@
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
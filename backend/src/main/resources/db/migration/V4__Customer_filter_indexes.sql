@@ -0,0 +1,4 @@
+-- "C" collation keys serve both prefix LIKE and ORDER BY, so filtered keyset pages stop after a limit
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_name_id_idx ON customer (name COLLATE "C", id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_email_id_idx ON customer (email COLLATE "C", id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_age_id_idx ON customer (age, id);
@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- email punctuation becomes word breaks, so "smith" finds smith.j@mail.by
+ALTER TABLE customer ADD COLUMN search TSVECTOR
+    GENERATED ALWAYS AS (to_tsvector('simple', name || ' ' || translate(email, '@.-_+', '     '))) STORED;
@@ -0,0 +1,7 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_search_idx ON customer USING GIN (search);
+-- GiST rather than GIN: besides the similarity filters it returns rows in distance order,
+-- so a search reads its best matches first instead of ranking an arbitrary subset
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_name_trgm_idx ON customer USING GIST (name gist_trgm_ops);
+-- the domain is left out: every gmail.com address shares its trigrams, which only adds noise and work
+CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_email_local_trgm_idx
+    ON customer USING GIST (split_part(email, '@', 1) gist_trgm_ops);
@@ -7,11 +7,13 @@ import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.JdbcDatabaseContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import javax.sql.DataSource;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,11 +22,15 @@ public abstract class AbsractTestContainers {
 
     @BeforeAll
     static void beforeAll() {
+        migrate(postgreSQLContainer);
+    }
+
+    protected static void migrate(JdbcDatabaseContainer<?> container) {
         Flyway flyway = Flyway.configure().dataSource(
-                postgreSQLContainer.getJdbcUrl(),
-                postgreSQLContainer.getUsername(),
-                postgreSQLContainer.getPassword()
-        ). load();
+                container.getJdbcUrl(),
+                container.getUsername(),
+                container.getPassword()
+        ).configuration(Map.of("flyway.postgresql.transactional.lock", "false")).load();
         flyway.migrate();
     }
 
@@ -43,11 +49,15 @@ public abstract class AbsractTestContainers {
     }
 
     private static DataSource getDataSource() {
+        return getDataSource(postgreSQLContainer);
+    }
+
+    protected static DataSource getDataSource(JdbcDatabaseContainer<?> container) {
         DataSourceBuilder builder = DataSourceBuilder.create()
-                .driverClassName(postgreSQLContainer.getDriverClassName())
-                .url(postgreSQLContainer.getJdbcUrl())
-                .username(postgreSQLContainer.getUsername())
-                .password(postgreSQLContainer.getPassword());
+                .driverClassName(container.getDriverClassName())
+                .url(container.getJdbcUrl())
+                .username(container.getUsername())
+                .password(container.getPassword());
         return builder.build();
     }
 
@@ -0,0 +1,137 @@
+package com.springPP.customer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springPP.datasource.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDAOTest {
+
+    @Mock
+    private CustomerDAO customerDAO;
+    private CachingCustomerDAO underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CachingCustomerDAO(customerDAO, Caffeine.newBuilder().maximumSize(10).build());
+    }
+
+    @Test
+    void selectCustomerByIdHitsDelegateOnce() {
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "test@mail.by", 20);
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        Optional<Customer> first = underTest.selectCustomerById(id);
+        Optional<Customer> second = underTest.selectCustomerById(id);
+
+        assertThat(first).contains(customer);
+        assertThat(second).contains(customer);
+        verify(customerDAO, times(1)).selectCustomerById(id);
+    }
+
+    @Test
+    void selectCustomerByIdDoesNotCacheMissingCustomers() {
+        long id = -1;
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+
+        verify(customerDAO, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void mutatingReturnedCustomerDoesNotChangeCachedCopy() {
+        long id = 1;
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", 20)));
+
+        underTest.selectCustomerById(id).orElseThrow().setName("Bob");
+
+        assertThat(underTest.selectCustomerById(id))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void updateCustomerInvalidatesEntry() {
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "test@mail.by", 20);
+        Customer updated = new Customer(id, "Bob", "test@mail.by", 20);
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.of(updated));
+
+        underTest.selectCustomerById(id);
+        underTest.updateCustomer(updated);
+
+        assertThat(underTest.selectCustomerById(id)).contains(updated);
+        verify(customerDAO).updateCustomer(updated);
+    }
+
+    @Test
+    void deleteCustomerByIdInvalidatesEntry() {
+        long id = 1;
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", 20)))
+                .thenReturn(Optional.empty());
+
+        underTest.selectCustomerById(id);
+        underTest.deleteCustomerById(id);
+
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        verify(customerDAO).deleteCustomerById(id);
+    }
+
+    @Test
+    void bulkUpdateInvalidatesOnlyUpdatedEntries() {
+        when(customerDAO.selectCustomerById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new Customer(invocation.getArgument(0), "Alex", "a@mail.by", 20)));
+        List<Customer> changes = List.of(new Customer(1L, null, null, 21), new Customer(2L, null, null, 20));
+        when(customerDAO.updateCustomersIfChanged(changes))
+                .thenReturn(new CustomerBulkUpdateResult(List.of(1L), List.of(2L), List.of()));
+
+        underTest.selectCustomerById(1L);
+        underTest.selectCustomerById(2L);
+        underTest.updateCustomersIfChanged(changes);
+        underTest.selectCustomerById(1L);
+        underTest.selectCustomerById(2L);
+
+        verify(customerDAO, times(2)).selectCustomerById(1L);
+        verify(customerDAO, times(1)).selectCustomerById(2L);
+    }
+
+    @Test
+    void bulkDeleteInvalidatesEntries() {
+        when(customerDAO.selectCustomerById(1L))
+                .thenReturn(Optional.of(new Customer(1L, "Alex", "a@mail.by", 20)))
+                .thenReturn(Optional.empty());
+        when(customerDAO.deleteCustomersByIds(List.of(1L))).thenReturn(List.of(1L));
+
+        underTest.selectCustomerById(1L);
+
+        assertThat(underTest.deleteCustomersByIds(List.of(1L))).containsExactly(1L);
+        assertThat(underTest.selectCustomerById(1L)).isEmpty();
+    }
+
+    @Test
+    void cacheMissesLoadFromPrimary() {
+        when(customerDAO.selectCustomerById(1L)).thenAnswer(invocation ->
+                Optional.of(new Customer(1L, ReadWriteRoutingDataSource.isPinnedToPrimary() ? "primary" : "replica",
+                        "a@mail.by", 20)));
+
+        assertThat(underTest.selectCustomerById(1L))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("primary"));
+        assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package com.springPP.customer;
+
+import com.springPP.datasource.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingCustomerDAOTest {
+
+    @Mock
+    private CustomerDAO customerDAO;
+    private SimpleMeterRegistry meterRegistry;
+    private CoalescingCustomerDAO underTest;
+    private ExecutorService executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CoalescingCustomerDAO(customerDAO, meterRegistry);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentLookupsShareOneCall() throws Exception {
+        when(customerDAO.selectCustomerById(1L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(new Customer(1L, "Alex", "alex@mail.by", 20));
+        });
+
+        List<Future<Optional<Customer>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lookups.add(executor.submit(() -> underTest.selectCustomerById(1L)));
+        }
+        awaitLookups("coalesced", 7);
+        release.countDown();
+
+        List<Customer> customers = new ArrayList<>();
+        for (Future<Optional<Customer>> lookup : lookups) {
+            customers.add(lookup.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        assertThat(customers).containsOnly(new Customer(1L, "Alex", "alex@mail.by", 20));
+        customers.get(0).setName("Bob");
+        assertThat(customers.subList(1, customers.size()))
+                .allSatisfy(c -> assertThat(c.getName()).isEqualTo("Alex"));
+        verify(customerDAO, times(1)).selectCustomerById(1L);
+        assertThat(lookups("executed")).isEqualTo(1);
+    }
+
+    @Test
+    void lookupStartedAfterWriteDoesNotJoin() throws Exception {
+        Customer updated = new Customer(1L, "Bob", "alex@mail.by", 20);
+        when(customerDAO.selectCustomerById(1L))
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return Optional.of(new Customer(1L, "Alex", "alex@mail.by", 20));
+                })
+                .thenReturn(Optional.of(updated));
+
+        Future<Optional<Customer>> before = executor.submit(() -> underTest.selectCustomerById(1L));
+        awaitLookups("executed", 1);
+        underTest.updateCustomer(updated);
+        Future<Optional<Customer>> after = executor.submit(() -> underTest.selectCustomerById(1L));
+
+        assertThat(after.get(5, TimeUnit.SECONDS)).contains(updated);
+        release.countDown();
+        assertThat(before.get(5, TimeUnit.SECONDS)).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+        verify(customerDAO, times(2)).selectCustomerById(1L);
+        assertThat(lookups("coalesced")).isZero();
+    }
+
+    @Test
+    void joinedLookupsSeeTheFailure() throws Exception {
+        when(customerDAO.selectCustomerById(1L)).thenAnswer(invocation -> {
+            release.await();
+            throw new QueryTimeoutException("timeout");
+        });
+
+        Future<Optional<Customer>> first = executor.submit(() -> underTest.selectCustomerById(1L));
+        Future<Optional<Customer>> second = executor.submit(() -> underTest.selectCustomerById(1L));
+        awaitLookups("coalesced", 1);
+        release.countDown();
+
+        for (Future<Optional<Customer>> lookup : List.of(first, second)) {
+            assertThatThrownBy(() -> lookup.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(QueryTimeoutException.class);
+        }
+        doReturn(Optional.empty()).when(customerDAO).selectCustomerById(1L);
+        assertThat(underTest.selectCustomerById(1L)).isEmpty();
+    }
+
+    @Test
+    void lookupsInsideTransactionGoToDelegate() {
+        when(customerDAO.selectCustomerById(1L)).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            underTest.selectCustomerById(1L);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertThat(lookups("bypassed")).isEqualTo(1);
+        assertThat(lookups("executed")).isZero();
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.counter("customer.dao.lookups", "result", result).count();
+    }
+
+    private void awaitLookups(String result, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lookups(result) < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(lookups(result)).isEqualTo(count);
+    }
+
+    @Test
+    void pinnedLookupsDoNotJoinReplicaLookups() throws Exception {
+        when(customerDAO.selectCustomerById(1L))
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return Optional.of(new Customer(1L, "Alex", "alex@mail.by", 20));
+                })
+                .thenReturn(Optional.of(new Customer(1L, "Bob", "alex@mail.by", 20)));
+
+        Future<Optional<Customer>> replicaRead = executor.submit(() -> underTest.selectCustomerById(1L));
+        awaitLookups("executed", 1);
+        Future<Optional<Customer>> primaryRead = executor.submit(() ->
+                ReadWriteRoutingDataSource.onPrimary(() -> underTest.selectCustomerById(1L)));
+
+        assertThat(primaryRead.get(5, TimeUnit.SECONDS))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Bob"));
+        release.countDown();
+        assertThat(replicaRead.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(lookups("coalesced")).isZero();
+    }
+}
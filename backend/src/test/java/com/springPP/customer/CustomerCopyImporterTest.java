@@ -0,0 +1,89 @@
+package com.springPP.customer;
+
+import com.springPP.AbsractTestContainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerCopyImporterTest extends AbsractTestContainers {
+
+    private CustomerCopyImporter underTest;
+    private CustomerJDBCDataAccessService customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerCopyImporter(getJdbcTemplate());
+        customerDAO = new CustomerJDBCDataAccessService(getJdbcTemplate(), new CustomerRowMapper());
+    }
+
+    @Test
+    void importCsv() {
+        String email = UUID.randomUUID() + "@mail.by";
+        String existingEmail = UUID.randomUUID() + "@mail.by";
+        customerDAO.insertCustomer(new Customer(faker.name().fullName(), existingEmail, 30));
+
+        InputStream csv = stream("""
+                name,email,age
+                "Doe, John",%s,20
+                Alex,%s,21
+                Bob,%s,22
+                """.formatted(email, existingEmail, email));
+
+        CustomerImportResult result = underTest.importCsv(csv);
+
+        assertThat(result).isEqualTo(new CustomerImportResult(3, 1, 2));
+        assertThat(customerDAO.selectAllCustomers())
+                .anyMatch(c -> c.getEmail().equals(email) && c.getName().equals("Doe, John"));
+    }
+
+    @Test
+    void importNdjson() {
+        String email = UUID.randomUUID() + "@mail.by";
+        String otherEmail = UUID.randomUUID() + "@mail.by";
+
+        InputStream ndjson = stream("""
+                {"name":"Alex \\"the great\\"","email":"%s","age":20}
+                {"name":"Bob","email":"%s"}
+                """.formatted(email, otherEmail));
+
+        CustomerImportResult result = underTest.importNdjson(ndjson);
+
+        assertThat(result).isEqualTo(new CustomerImportResult(2, 1, 1));
+        assertThat(customerDAO.existsPersonWithEmail(email)).isTrue();
+        assertThat(customerDAO.existsPersonWithEmail(otherEmail)).isFalse();
+    }
+
+    @Test
+    void willThrowWhenNdjsonIsMalformed() {
+        InputStream ndjson = stream("{\"name\":\n");
+
+        assertThatThrownBy(() -> underTest.importNdjson(ndjson))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void importsAfterAFailedImport() {
+        assertThatThrownBy(() -> underTest.importNdjson(stream("{\"name\":\n")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        String email = UUID.randomUUID() + "@mail.by";
+
+        CustomerImportResult result = underTest.importCsv(stream("""
+                name,email,age
+                Alex,%s,20
+                """.formatted(email)));
+
+        assertThat(result).isEqualTo(new CustomerImportResult(1, 1, 0));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,42 @@
+package com.springPP.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerEmailIndexTest {
+
+    @Test
+    void mightContainHasNoFalseNegatives() {
+        CustomerEmailIndex underTest = new CustomerEmailIndex(10_000, 0.01);
+
+        IntStream.range(0, 10_000).forEach(i -> underTest.put("customer" + i + "@mail.by"));
+
+        assertThat(IntStream.range(0, 10_000))
+                .allMatch(i -> underTest.mightContain("customer" + i + "@mail.by"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        CustomerEmailIndex underTest = new CustomerEmailIndex(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> underTest.put("customer" + i + "@mail.by"));
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> underTest.mightContain("missing" + i + "@mail.by"))
+                .count();
+
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(underTest.falsePositiveRate()).isBetween(0.0, 0.02);
+    }
+
+    @Test
+    void memoryBytesMatchesSizing() {
+        CustomerEmailIndex underTest = new CustomerEmailIndex(1_000_000, 0.01);
+
+        // ~9.6 bits per element for a 1% false positive rate
+        assertThat(underTest.memoryBytes()).isBetween(1_150_000L, 1_250_000L);
+        assertThat(underTest.falsePositiveRate()).isZero();
+    }
+}
@@ -4,11 +4,16 @@ import com.springPP.AbsractTestContainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
@@ -38,6 +43,86 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
         assertThat(customers).isNotEmpty();
     }
 
+    @Test
+    void selectCustomersAfterId() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+        underTest.insertCustomer(customer);
+        underTest.insertCustomer(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                21
+        ));
+
+        long id = underTest.selectAllCustomers().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        List<Customer> actual = underTest.selectCustomersAfterId(id - 1, 2);
+
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).getId()).isEqualTo(id);
+        assertThat(actual.get(1).getId()).isGreaterThan(id);
+    }
+
+    @Test
+    void selectCustomersFiltersSortsAndResumesAfterKey() {
+        String tag = UUID.randomUUID().toString();
+        underTest.insertCustomer(new Customer(tag + " Carl", tag + "-c@mail.by", 40));
+        underTest.insertCustomer(new Customer(tag + " Bob", tag + "-b@mail.by", 30));
+        underTest.insertCustomer(new Customer(tag + " Alex", tag + "-a@mail.by", 30));
+        underTest.insertCustomer(new Customer(tag + " Dan", tag + "-d@mail.by", 60));
+        CustomerFilter filter = new CustomerFilter(30, 50, tag, null);
+        CustomerSort byAgeDesc = new CustomerSort(CustomerSort.Field.AGE, true);
+
+        List<Customer> first = underTest.selectCustomers(filter, byAgeDesc, null, 2);
+        List<Customer> rest = underTest.selectCustomers(filter, byAgeDesc, first.get(1), 2);
+
+        assertThat(first).extracting(Customer::getName).containsExactly(tag + " Carl", tag + " Alex");
+        assertThat(rest).extracting(Customer::getName).containsExactly(tag + " Bob");
+        assertThat(underTest.selectCustomers(new CustomerFilter(null, null, null, tag + "-b"),
+                new CustomerSort(CustomerSort.Field.EMAIL, false), null, 10))
+                .extracting(Customer::getAge).containsExactly(30);
+    }
+
+    @Test
+    void selectCustomersTreatsLikeWildcardsInPrefixLiterally() {
+        String tag = UUID.randomUUID().toString();
+        underTest.insertCustomer(new Customer(tag + "_x", tag + "-1@mail.by", 20));
+        underTest.insertCustomer(new Customer(tag + "ax", tag + "-2@mail.by", 20));
+        underTest.insertCustomer(new Customer(tag + "%x", tag + "-3@mail.by", 20));
+
+        assertThat(underTest.selectCustomers(new CustomerFilter(null, null, tag + "_", null),
+                CustomerSort.BY_ID, null, 10))
+                .extracting(Customer::getName).containsExactly(tag + "_x");
+        assertThat(underTest.selectCustomers(new CustomerFilter(null, null, tag + "%", null),
+                new CustomerSort(CustomerSort.Field.NAME, true), null, 10))
+                .extracting(Customer::getName).containsExactly(tag + "%x");
+    }
+
+    @Test
+    void forEachCustomer() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+        underTest.insertCustomer(customer);
+
+        List<Customer> actual = new ArrayList<>();
+        underTest.forEachCustomer(actual::add);
+
+        assertThat(actual).hasSameSizeAs(underTest.selectAllCustomers());
+        assertThat(actual).anyMatch(c -> c.getEmail().equals(email));
+    }
+
     @Test
     void selectCustomerById() {
         String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
@@ -49,7 +134,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -66,7 +151,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
     @Test
     void willReturnEmptyWhenSelectCustomerById() {
-        int id = -1;
+        long id = -1;
 
         var actual = underTest.selectCustomerById(id);
 
@@ -84,7 +169,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -93,6 +178,22 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
         assertThat(id).isGreaterThan(0);
     }
 
+    @Test
+    void insertCustomers() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        String otherEmail = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        List<Customer> customers = List.of(
+                new Customer(faker.name().fullName(), email, 20),
+                new Customer(faker.name().fullName(), otherEmail, 21)
+        );
+
+        underTest.insertCustomers(customers);
+
+        assertThat(underTest.selectAllCustomers())
+                .extracting(Customer::getEmail)
+                .contains(email, otherEmail);
+    }
+
     @Test
     void deleteCustomerById() {
         String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
@@ -104,7 +205,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -129,7 +230,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -162,7 +263,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(oldEmail))
                 .map(Customer::getId)
                 .findFirst()
@@ -193,7 +294,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -230,6 +331,22 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
         assertThat(result).isTrue();
     }
 
+    @Test
+    void selectExistingEmails() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        String missingEmail = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+
+        underTest.insertCustomer(customer);
+        Set<String> result = underTest.selectExistingEmails(List.of(email, missingEmail));
+
+        assertThat(result).containsExactly(email);
+    }
+
     @Test
     void existsCustomerWithId() {
         String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
@@ -241,7 +358,7 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers().stream()
+        long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -251,4 +368,197 @@ class CustomerJDBCDataAccessServiceTest extends AbsractTestContainers {
 
         assertThat(result).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertCustomerIfEmailAbsent() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+
+        Optional<Customer> inserted = underTest.insertCustomerIfEmailAbsent(customer);
+        Optional<Customer> duplicate = underTest.insertCustomerIfEmailAbsent(customer);
+
+        assertThat(inserted).hasValueSatisfying(c -> {
+            assertThat(c.getId()).isNotNull();
+            assertThat(c.getEmail()).isEqualTo(email);
+        });
+        assertThat(duplicate).isEmpty();
+    }
+
+    @Test
+    void deleteCustomerByIdReturning() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+
+        long id = underTest.insertCustomerIfEmailAbsent(customer).orElseThrow().getId();
+
+        assertThat(underTest.deleteCustomerByIdReturning(id))
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+        assertThat(underTest.deleteCustomerByIdReturning(id)).isEmpty();
+    }
+
+    @Test
+    void updateCustomerIfChanged() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+
+        long id = underTest.insertCustomerIfEmailAbsent(customer).orElseThrow().getId();
+
+        Optional<Customer> updated = underTest.updateCustomerIfChanged(new Customer(id, null, null, 21));
+        Optional<Customer> unchanged = underTest.updateCustomerIfChanged(new Customer(id, null, email, 21));
+        Optional<Customer> missing = underTest.updateCustomerIfChanged(new Customer(-1L, "Bob", null, null));
+
+        assertThat(updated).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(21);
+            assertThat(c.getEmail()).isEqualTo(email);
+            assertThat(c.getName()).isEqualTo(customer.getName());
+        });
+        assertThat(unchanged).isEmpty();
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    void updateCustomerIfChangedChecksExpectedVersion() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer inserted = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        )).orElseThrow();
+        long id = inserted.getId();
+
+        Optional<Customer> updated = underTest.updateCustomerIfChanged(new Customer(id, null, null, 21, 0L));
+        Optional<Customer> stale = underTest.updateCustomerIfChanged(new Customer(id, null, null, 22, 0L));
+        underTest.updateCustomer(new Customer(id, inserted.getName(), email, 23));
+
+        assertThat(inserted.getVersion()).isZero();
+        assertThat(updated).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1));
+        assertThat(stale).isEmpty();
+        assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(23);
+            assertThat(c.getVersion()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void deleteCustomersByIdsReturnsDeletedIds() {
+        long first = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                20
+        )).orElseThrow().getId();
+        long second = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                21
+        )).orElseThrow().getId();
+
+        assertThat(underTest.deleteCustomersByIds(List.of(first, -1L, second)))
+                .containsExactlyInAnyOrder(first, second);
+        assertThat(underTest.existsCustomerWithId(first)).isFalse();
+        assertThat(underTest.deleteCustomersByIds(List.of(first))).isEmpty();
+    }
+
+    @Test
+    void updateCustomersIfChangedSortsOutcomes() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer changed = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        )).orElseThrow();
+        Customer same = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                30
+        )).orElseThrow();
+
+        CustomerBulkUpdateResult result = underTest.updateCustomersIfChanged(List.of(
+                new Customer(-1L, "Bob", null, null),
+                new Customer(same.getId(), same.getName(), null, 30),
+                new Customer(changed.getId(), null, null, 21)));
+
+        assertThat(result).isEqualTo(new CustomerBulkUpdateResult(
+                List.of(changed.getId()), List.of(same.getId()), List.of(-1L)));
+        assertThat(underTest.selectCustomerById(changed.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(21);
+            assertThat(c.getEmail()).isEqualTo(email);
+            assertThat(c.getVersion()).isEqualTo(1);
+        });
+        assertThat(underTest.selectCustomerById(same.getId()).orElseThrow().getVersion()).isZero();
+    }
+
+    @Test
+    void updateCustomersIfChangedIsAllOrNothingOnEmailConflict() {
+        String taken = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(faker.name().fullName(), taken, 20));
+        long id = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                30
+        )).orElseThrow().getId();
+        long other = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(),
+                40
+        )).orElseThrow().getId();
+
+        assertThatThrownBy(() -> underTest.updateCustomersIfChanged(List.of(
+                new Customer(other, null, null, 41),
+                new Customer(id, null, taken, null))))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectCustomerById(other).orElseThrow().getAge()).isEqualTo(40);
+    }
+
+    @Test
+    void selectCollectionVersionChangesOnEveryWrite() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        CustomerCollectionVersion before = underTest.selectCollectionVersion();
+        long id = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        )).orElseThrow().getId();
+        CustomerCollectionVersion inserted = underTest.selectCollectionVersion();
+        underTest.updateCustomerIfChanged(new Customer(id, null, null, 21));
+        CustomerCollectionVersion updated = underTest.selectCollectionVersion();
+        underTest.deleteCustomerById(id);
+        CustomerCollectionVersion deleted = underTest.selectCollectionVersion();
+
+        assertThat(inserted.count()).isEqualTo(before.count() + 1);
+        assertThat(inserted.maxId()).isEqualTo(id);
+        assertThat(updated.versionSum()).isEqualTo(inserted.versionSum() + 1);
+        assertThat(deleted.count()).isEqualTo(before.count());
+        assertThat(deleted).isNotEqualTo(updated);
+    }
+
+    @Test
+    void selectCollectionVersionChangesWhenARowIsReplacedBelowMaxId() {
+        long replaced = underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(), UUID.randomUUID() + "@mail.by", 20)).orElseThrow().getId();
+        underTest.insertCustomerIfEmailAbsent(new Customer(
+                faker.name().fullName(), UUID.randomUUID() + "@mail.by", 20));
+        CustomerCollectionVersion before = underTest.selectCollectionVersion();
+
+        // a pooled-lo block of another instance hands out an id below the current max
+        underTest.deleteCustomerById(replaced);
+        getJdbcTemplate().update("INSERT INTO customer(id, name, email, age) VALUES (?, ?, ?, ?)",
+                replaced + 1, faker.name().fullName(), UUID.randomUUID() + "@mail.by", 20);
+        CustomerCollectionVersion after = underTest.selectCollectionVersion();
+
+        assertThat(after.count()).isEqualTo(before.count());
+        assertThat(after.maxId()).isEqualTo(before.maxId());
+        assertThat(after).isNotEqualTo(before);
+    }
+}
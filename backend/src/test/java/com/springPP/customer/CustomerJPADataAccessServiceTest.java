@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,10 +37,24 @@ class CustomerJPADataAccessServiceTest {
         Mockito.verify(customerRepository).findAll();
     }
 
+    @Test
+    void selectCustomersAfterId() {
+        long id = 1;
+        int limit = 10;
+        underTest.selectCustomersAfterId(id, limit);
+        Mockito.verify(customerRepository).findByIdGreaterThanOrderByIdAsc(id, Limit.of(limit));
+    }
+
+    @Test
+    void forEachCustomer() {
+        underTest.forEachCustomer(customer -> {});
+        Mockito.verify(customerRepository).streamAllBy();
+    }
+
     @Test
     void selectCustomerById() {
-        int id = 1;
-        underTest.selectCustomerById(1);
+        long id = 1;
+        underTest.selectCustomerById(1L);
         Mockito.verify(customerRepository).findById(id);
     }
 
@@ -54,9 +71,20 @@ class CustomerJPADataAccessServiceTest {
         Mockito.verify(customerRepository).save(customer);
     }
 
+    @Test
+    void insertCustomers() {
+        List<Customer> customers = List.of(
+                new Customer("Bob", "bob@test.com", 20),
+                new Customer("Alex", "alex@test.com", 21)
+        );
+
+        underTest.insertCustomers(customers);
+        Mockito.verify(customerRepository).saveAll(customers);
+    }
+
     @Test
     void deleteCustomerById() {
-        int id = 1;
+        long id = 1;
 
         underTest.deleteCustomerById(id);
 
@@ -71,12 +99,22 @@ class CustomerJPADataAccessServiceTest {
                 email,
                 20
         );
-        customer.setId(1);
+        customer.setId(1L);
+        customer.setVersion(3L);
         underTest.updateCustomer(customer);
 
         Mockito.verify(customerRepository).save(customer);
     }
 
+    @Test
+    void updateCustomerWithoutVersionDoesNotSave() {
+        Customer customer = new Customer(1L, "Alex", "test@test.com", 20);
+        underTest.updateCustomer(customer);
+
+        Mockito.verify(customerRepository).updateIfChanged(1L, "Alex", "test@test.com", 20, null);
+        Mockito.verify(customerRepository, Mockito.never()).save(customer);
+    }
+
     @Test
     void existsPersonWithEmail() {
         String email = "test@test.com";
@@ -85,10 +123,76 @@ class CustomerJPADataAccessServiceTest {
         Mockito.verify(customerRepository).existsCustomerByEmail(email);
     }
 
+    @Test
+    void selectExistingEmails() {
+        List<String> emails = List.of("test@test.com", "other@test.com");
+        underTest.selectExistingEmails(emails);
+
+        Mockito.verify(customerRepository).findEmailsByEmailIn(emails);
+    }
+
     @Test
     void existsCustomerWithId() {
-        int id = 1;
+        long id = 1;
         underTest.existsCustomerWithId(id);
         Mockito.verify(customerRepository).existsCustomerById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertCustomerIfEmailAbsent() {
+        Customer customer = new Customer(
+                "Alex",
+                "test@test.com",
+                20
+        );
+        underTest.insertCustomerIfEmailAbsent(customer);
+
+        Mockito.verify(customerRepository).insertIfEmailAbsent("Alex", "test@test.com", 20);
+    }
+
+    @Test
+    void deleteCustomerByIdReturning() {
+        long id = 1;
+        underTest.deleteCustomerByIdReturning(id);
+
+        Mockito.verify(customerRepository).deleteByIdReturning(id);
+    }
+
+    @Test
+    void updateCustomerIfChanged() {
+        Customer changes = new Customer(1L, "Bob", null, null);
+        underTest.updateCustomerIfChanged(changes);
+
+        Mockito.verify(customerRepository).updateIfChanged(1L, "Bob", null, null, null);
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        underTest.deleteCustomersByIds(List.of(1L, 2L));
+
+        Mockito.verify(customerRepository).deleteByIdsReturningIds(new Long[]{1L, 2L});
+    }
+
+    @Test
+    void updateCustomersIfChanged() {
+        Mockito.when(customerRepository.updateAllIfChanged(
+                new Long[]{1L, 2L, 3L}, new String[]{"Bob", null, null},
+                new String[]{null, null, null}, new Integer[]{null, 30, 40}))
+                .thenReturn(List.of(new Object[]{1L, true, true}, new Object[]{2L, true, false},
+                        new Object[]{3L, false, false}));
+
+        CustomerBulkUpdateResult result = underTest.updateCustomersIfChanged(List.of(
+                new Customer(1L, "Bob", null, null),
+                new Customer(2L, null, null, 30),
+                new Customer(3L, null, null, 40)));
+
+        assertEquals(new CustomerBulkUpdateResult(List.of(1L), List.of(2L), List.of(3L)), result);
+    }
+
+    @Test
+    void selectCollectionVersion() {
+        underTest.selectCollectionVersion();
+
+        Mockito.verify(customerRepository).selectCollectionVersion();
+    }
+}
@@ -0,0 +1,74 @@
+package com.springPP.customer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerJsonComponentTest {
+
+    private final ObjectMapper reflective = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper underTest = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new SimpleModule()
+                    .addSerializer(Customer.class, new CustomerJsonComponent.Serializer())
+                    .addDeserializer(CustomerRegistrationRequest.class,
+                            new CustomerJsonComponent.RegistrationRequestDeserializer())
+                    .addDeserializer(CustomerEditRequest.class, new CustomerJsonComponent.EditRequestDeserializer())
+                    .addDeserializer(CustomerBulkEditRequest.class,
+                            new CustomerJsonComponent.BulkEditRequestDeserializer()))
+            .build();
+
+    @Test
+    void writesTheSameJsonAsTheReflectiveSerializer() throws Exception {
+        CustomerPage page = new CustomerPage(List.of(
+                new Customer(1L, "Łukasz \"Ł\"", "łukasz@mail.by", 30, 4L),
+                new Customer(null, null, "x@mail.by", null)
+        ), "Mg");
+
+        assertThat(underTest.writeValueAsString(page)).isEqualTo(reflective.writeValueAsString(page));
+    }
+
+    @Test
+    void readsRequestsWithNullsUnknownFieldsAndCoercedValues() throws Exception {
+        String json = """
+                {"email":"bob@mail.by","extra":{"nested":[1,2]},"age":"31","name":null}
+                """;
+
+        assertThat(underTest.readValue(json, CustomerRegistrationRequest.class))
+                .isEqualTo(new CustomerRegistrationRequest(null, "bob@mail.by", 31))
+                .isEqualTo(reflective.readValue(json, CustomerRegistrationRequest.class));
+        assertThat(underTest.readValue("{}", CustomerEditRequest.class))
+                .isEqualTo(new CustomerEditRequest(null, null, null));
+    }
+
+    @Test
+    void readsIdOnlyForBulkEdits() throws Exception {
+        String json = """
+                [{"id":3,"age":40},{"id":"4","email":"bob@mail.by","extra":1}]
+                """;
+        TypeReference<List<CustomerBulkEditRequest>> type = new TypeReference<>() {
+        };
+
+        assertThat(underTest.readValue(json, type))
+                .containsExactly(new CustomerBulkEditRequest(3L, null, null, 40),
+                        new CustomerBulkEditRequest(4L, null, "bob@mail.by", null))
+                .isEqualTo(reflective.readValue(json, type));
+        assertThat(underTest.readValue("{\"id\":3,\"age\":40}", CustomerEditRequest.class))
+                .isEqualTo(new CustomerEditRequest(null, null, 40));
+    }
+
+    @Test
+    void willThrowOnNonObjectInput() {
+        assertThatThrownBy(() -> underTest.readValue("[1]", CustomerEditRequest.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> underTest.readValue("{\"age\":[1]}", CustomerEditRequest.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
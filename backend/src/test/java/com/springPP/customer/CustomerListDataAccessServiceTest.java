@@ -0,0 +1,214 @@
+package com.springPP.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerAssignsIds() {
+        Customer inserted = underTest.insertCustomerIfEmailAbsent(
+                new Customer("Bob", "bob@mail.by", 30)).orElseThrow();
+
+        assertThat(inserted.getId()).isEqualTo(3);
+        assertThat(underTest.selectCustomerById(3L)).contains(inserted);
+        assertThat(underTest.existsPersonWithEmail("bob@mail.by")).isTrue();
+        assertThat(underTest.existsCustomerWithId(3L)).isTrue();
+    }
+
+    @Test
+    void insertCustomerIfEmailAbsentRejectsTakenEmail() {
+        underTest.insertCustomer(new Customer("Bob", "bob@mail.by", 30));
+
+        assertThat(underTest.insertCustomerIfEmailAbsent(new Customer("Bobby", "bob@mail.by", 31))).isEmpty();
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Bobby", "bob@mail.by", 31)))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void insertCustomersIsAllOrNothing() {
+        List<Customer> batch = List.of(
+                new Customer("Bob", "bob@mail.by", 30),
+                new Customer("Anakin again", "123@gmail.com", 40),
+                new Customer("Carl", "carl@mail.by", 41));
+
+        assertThatThrownBy(() -> underTest.insertCustomers(batch)).isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+        assertThat(underTest.existsPersonWithEmail("bob@mail.by")).isFalse();
+        assertThat(underTest.existsPersonWithEmail("carl@mail.by")).isFalse();
+
+        underTest.insertCustomers(List.of(batch.get(0), batch.get(2)));
+
+        assertThat(underTest.selectAllCustomers()).extracting(Customer::getEmail)
+                .containsExactly("@gmail.com", "123@gmail.com", "bob@mail.by", "carl@mail.by");
+    }
+
+    @Test
+    void returnedCustomersAreCopies() {
+        Customer customer = underTest.selectCustomerById(1L).orElseThrow();
+        customer.setEmail("changed@mail.by");
+
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getEmail()).isEqualTo("@gmail.com");
+        assertThat(underTest.existsPersonWithEmail("changed@mail.by")).isFalse();
+    }
+
+    @Test
+    void selectCustomersAfterIdPagesInIdOrder() {
+        underTest.insertCustomer(new Customer("Bob", "bob@mail.by", 30));
+        underTest.insertCustomer(new Customer("Carl", "carl@mail.by", 31));
+        underTest.deleteCustomerById(3L);
+
+        List<Customer> page = underTest.selectCustomersAfterId(1L, 2);
+
+        assertThat(page).extracting(Customer::getId).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void selectCustomersFiltersAndResumesAfterSortKey() {
+        underTest.insertCustomer(new Customer("Bob", "bob@mail.by", 30));
+        underTest.insertCustomer(new Customer("Bea", "bea@mail.by", 30));
+        underTest.insertCustomer(new Customer("Carl", "carl@mail.by", 41));
+        CustomerSort byName = new CustomerSort(CustomerSort.Field.NAME, false);
+
+        List<Customer> first = underTest.selectCustomers(new CustomerFilter(null, 40, "B", null), byName, null, 1);
+        List<Customer> rest = underTest.selectCustomers(new CustomerFilter(null, 40, "B", null), byName, first.get(0), 10);
+
+        assertThat(first).extracting(Customer::getName).containsExactly("Bea");
+        assertThat(rest).extracting(Customer::getName).containsExactly("Bob");
+    }
+
+    @Test
+    void selectCustomersWalksIdsInBothDirections() {
+        underTest.insertCustomer(new Customer("Bob", "bob@mail.by", 30));
+        underTest.insertCustomer(new Customer("Bea", "bea@mail.by", 50));
+        underTest.insertCustomer(new Customer("Carl", "carl@mail.by", 41));
+        CustomerFilter underFifty = new CustomerFilter(null, 49, null, null);
+        Customer third = underTest.selectCustomerById(3L).orElseThrow();
+
+        assertThat(underTest.selectCustomers(underFifty, CustomerSort.BY_ID, third, 10))
+                .extracting(Customer::getId).containsExactly(5L);
+        assertThat(underTest.selectCustomers(underFifty, new CustomerSort(CustomerSort.Field.ID, true), null, 3))
+                .extracting(Customer::getId).containsExactly(5L, 3L, 2L);
+    }
+
+    @Test
+    void updateCustomerReplacesInsteadOfAppending() {
+        underTest.updateCustomer(new Customer(1L, "Alexander", "alex@mail.by", 26));
+
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+        assertThat(underTest.selectCustomerById(1L))
+                .contains(new Customer(1L, "Alexander", "alex@mail.by", 26));
+        assertThat(underTest.existsPersonWithEmail("@gmail.com")).isFalse();
+        assertThat(underTest.existsPersonWithEmail("alex@mail.by")).isTrue();
+    }
+
+    @Test
+    void updateCustomerIfChanged() {
+        assertThat(underTest.updateCustomerIfChanged(new Customer(1L, null, null, 25))).isEmpty();
+        assertThat(underTest.updateCustomerIfChanged(new Customer(-1L, "Bob", null, null))).isEmpty();
+        assertThat(underTest.updateCustomerIfChanged(new Customer(1L, null, null, 26)))
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(26));
+        assertThatThrownBy(() -> underTest.updateCustomerIfChanged(new Customer(1L, null, "123@gmail.com", null)))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getEmail()).isEqualTo("@gmail.com");
+    }
+
+    @Test
+    void updatesBumpVersionAndHonourExpectedVersion() {
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getVersion()).isZero();
+
+        assertThat(underTest.updateCustomerIfChanged(new Customer(1L, null, null, 26, 0L)))
+                .hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1));
+        assertThat(underTest.updateCustomerIfChanged(new Customer(1L, null, null, 27, 0L))).isEmpty();
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getAge()).isEqualTo(26);
+    }
+
+    @Test
+    void selectCollectionVersionTracksWrites() {
+        CustomerCollectionVersion initial = underTest.selectCollectionVersion();
+        underTest.updateCustomerIfChanged(new Customer(1L, null, null, 26));
+
+        assertThat(initial).isEqualTo(new CustomerCollectionVersion(2, 2, 3, 0));
+        assertThat(underTest.selectCollectionVersion()).isEqualTo(new CustomerCollectionVersion(2, 2, 3, 1));
+    }
+
+    @Test
+    void deleteCustomerByIdReturningReleasesEmail() {
+        assertThat(underTest.deleteCustomerByIdReturning(1L))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+        assertThat(underTest.deleteCustomerByIdReturning(1L)).isEmpty();
+        assertThat(underTest.existsPersonWithEmail("@gmail.com")).isFalse();
+        assertThat(underTest.selectExistingEmails(Set.of("@gmail.com", "123@gmail.com")))
+                .containsExactly("123@gmail.com");
+    }
+
+    @Test
+    void deleteCustomersByIdsReleasesEmails() {
+        assertThat(underTest.deleteCustomersByIds(List.of(2L, 7L, 1L))).containsExactly(2L, 1L);
+        assertThat(underTest.selectAllCustomers()).isEmpty();
+        assertThat(underTest.existsPersonWithEmail("@gmail.com")).isFalse();
+    }
+
+    @Test
+    void updateCustomersIfChanged() {
+        CustomerBulkUpdateResult result = underTest.updateCustomersIfChanged(List.of(
+                new Customer(1L, null, null, 26),
+                new Customer(2L, null, null, 39),
+                new Customer(7L, "Bob", null, null)));
+
+        assertThat(result).isEqualTo(new CustomerBulkUpdateResult(List.of(1L), List.of(2L), List.of(7L)));
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentInsertsOfSameEmailHaveOneWinner() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            List<Future<Optional<Customer>>> results = IntStream.range(0, 1000)
+                    .mapToObj(i -> executor.submit(() -> {
+                        Optional<Customer> shared = underTest.insertCustomerIfEmailAbsent(
+                                new Customer("Shared", "shared@mail.by", 30));
+                        underTest.insertCustomerIfEmailAbsent(new Customer("Unique", "unique-" + i + "@mail.by", 30))
+                                .ifPresent(c -> ids.add(c.getId()));
+                        return shared;
+                    }))
+                    .toList();
+
+            long winners = 0;
+            for (Future<Optional<Customer>> result : results) {
+                if (result.get().isPresent()) {
+                    winners++;
+                }
+            }
+
+            assertThat(winners).isEqualTo(1);
+            assertThat(ids).hasSize(1000);
+            assertThat(underTest.selectAllCustomers()).hasSize(1003);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.springPP.customer;
+
+import com.springPP.exception.ReadOnlyStoreException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerOffHeapDataAccessServiceTest {
+
+    @Mock
+    private CustomerDAO source;
+    private CustomerOffHeapDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@mail.by", 20),
+                new Customer(3L, "Bob", "bob@mail.by", 30),
+                new Customer(7L, "Carl", "carl@mail.by", 40)
+        );
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            customers.forEach(action);
+            return null;
+        }).when(source).forEachCustomer(any());
+        underTest = new CustomerOffHeapDataAccessService(source, false, null, Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void selectCustomerById() {
+        assertThat(underTest.selectCustomerById(3L)).contains(new Customer(3L, "Bob", "bob@mail.by", 30));
+        assertThat(underTest.selectCustomerById(2L)).isEmpty();
+    }
+
+    @Test
+    void selectCustomersAfterId() {
+        assertThat(underTest.selectCustomersAfterId(1L, 1)).extracting(Customer::getId).containsExactly(3L);
+        assertThat(underTest.selectCustomersAfterId(3L, 10)).extracting(Customer::getId).containsExactly(7L);
+        assertThat(underTest.selectCustomersAfterId(7L, 10)).isEmpty();
+    }
+
+    @Test
+    void selectCustomersFiltersAndPagesInSortOrder() {
+        CustomerSort byAgeDesc = new CustomerSort(CustomerSort.Field.AGE, true);
+
+        assertThat(underTest.selectCustomers(new CustomerFilter(25, null, null, null), CustomerSort.BY_ID, null, 10))
+                .extracting(Customer::getId).containsExactly(3L, 7L);
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, CustomerSort.BY_ID,
+                new Customer(1L, null, null, null), 1))
+                .extracting(Customer::getId).containsExactly(3L);
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, byAgeDesc, new Customer(7L, null, null, 40), 10))
+                .extracting(Customer::getId).containsExactly(3L, 1L);
+        assertThat(underTest.selectCustomers(new CustomerFilter(null, null, "B", "bob@"), byAgeDesc, null, 10))
+                .extracting(Customer::getId).containsExactly(3L);
+    }
+
+    @Test
+    void selectCustomersWalksIdsBackwardsAndKeepsOnlyThePage() {
+        CustomerSort byIdDesc = new CustomerSort(CustomerSort.Field.ID, true);
+        CustomerSort byName = new CustomerSort(CustomerSort.Field.NAME, false);
+
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, byIdDesc, null, 2))
+                .extracting(Customer::getId).containsExactly(7L, 3L);
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, byIdDesc, new Customer(7L, null, null, null), 10))
+                .extracting(Customer::getId).containsExactly(3L, 1L);
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, byIdDesc, new Customer(5L, null, null, null), 10))
+                .extracting(Customer::getId).containsExactly(3L, 1L);
+        assertThat(underTest.selectCustomers(CustomerFilter.NONE, byName, null, 2))
+                .extracting(Customer::getName).containsExactly("Alex", "Bob");
+    }
+
+    @Test
+    void emailAndIdChecks() {
+        assertThat(underTest.existsPersonWithEmail("carl@mail.by")).isTrue();
+        assertThat(underTest.existsPersonWithEmail("dan@mail.by")).isFalse();
+        assertThat(underTest.existsCustomerWithId(7L)).isTrue();
+        assertThat(underTest.selectExistingEmails(List.of("alex@mail.by", "dan@mail.by")))
+                .isEqualTo(Set.of("alex@mail.by"));
+    }
+
+    @Test
+    void selectAllCustomers() {
+        assertThat(underTest.selectAllCustomers()).extracting(Customer::getId).containsExactly(1L, 3L, 7L);
+    }
+
+    @Test
+    void startsFromSnapshotAndCatchesUp(@TempDir Path directory) throws IOException {
+        Path snapshot = directory.resolve("customers.snapshot");
+        new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+        when(source.selectCustomersAfterId(7L, 10_000)).thenReturn(List.of(new Customer(8L, "Dan", "dan@mail.by", 50)));
+        when(source.selectCollectionVersion()).thenReturn(new CustomerCollectionVersion(4, 8, 19, 0));
+        clearInvocations(source);
+
+        CustomerOffHeapDataAccessService restarted =
+                new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+
+        verify(source, never()).forEachCustomer(any());
+        assertThat(restarted.selectAllCustomers()).extracting(Customer::getId).containsExactly(1L, 3L, 7L, 8L);
+        assertThat(CustomerSnapshot.read(snapshot).highWaterMark()).isEqualTo(8);
+    }
+
+    @Test
+    void fullReloadWhenRowsBelowHighWaterMarkChanged(@TempDir Path directory) throws IOException {
+        Path snapshot = directory.resolve("customers.snapshot");
+        new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+        when(source.selectCustomersAfterId(7L, 10_000)).thenReturn(List.of());
+        // customer 3 was updated once since the snapshot was written
+        when(source.selectCollectionVersion()).thenReturn(new CustomerCollectionVersion(3, 7, 11, 1));
+        clearInvocations(source);
+
+        new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+
+        verify(source).forEachCustomer(any());
+    }
+
+    @Test
+    void fullReloadWhenARowBelowHighWaterMarkWasReplaced(@TempDir Path directory) throws IOException {
+        Path snapshot = directory.resolve("customers.snapshot");
+        new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+        when(source.selectCustomersAfterId(7L, 10_000)).thenReturn(List.of());
+        // customer 3 was deleted and a pooled-lo id 4 inserted, with the same count, max id and versions
+        when(source.selectCollectionVersion()).thenReturn(new CustomerCollectionVersion(3, 7, 12, 0));
+        clearInvocations(source);
+
+        new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+
+        verify(source).forEachCustomer(any());
+    }
+
+    @Test
+    void refreshIfChangedReloadsOnlyOnDifference() {
+        when(source.selectCollectionVersion())
+                .thenReturn(new CustomerCollectionVersion(3, 7, 11, 0))
+                .thenReturn(new CustomerCollectionVersion(2, 7, 10, 0));
+        clearInvocations(source);
+
+        assertThat(underTest.refreshIfChanged()).isFalse();
+        verify(source, never()).forEachCustomer(any());
+        assertThat(underTest.refreshIfChanged()).isTrue();
+        verify(source).forEachCustomer(any());
+    }
+
+    @Test
+    void fullReloadWhenSnapshotIsInvalid(@TempDir Path directory) throws IOException {
+        Path snapshot = directory.resolve("customers.snapshot");
+        Files.writeString(snapshot, "not a snapshot");
+
+        CustomerOffHeapDataAccessService restarted =
+                new CustomerOffHeapDataAccessService(source, true, snapshot, Duration.ZERO, new SimpleMeterRegistry());
+
+        assertThat(restarted.selectAllCustomers()).extracting(Customer::getId).containsExactly(1L, 3L, 7L);
+        assertThat(CustomerSnapshot.read(snapshot).size()).isEqualTo(3);
+    }
+
+    @Test
+    void willThrowOnWrites() {
+        assertThatThrownBy(() -> underTest.insertCustomerIfEmailAbsent(new Customer("Dan", "dan@mail.by", 20)))
+                .isInstanceOf(ReadOnlyStoreException.class);
+        assertThatThrownBy(() -> underTest.deleteCustomerByIdReturning(1L))
+                .isInstanceOf(ReadOnlyStoreException.class);
+    }
+}
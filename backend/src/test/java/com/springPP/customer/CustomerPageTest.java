@@ -0,0 +1,36 @@
+package com.springPP.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerPageTest {
+
+    @Test
+    void fingerprintChangesWhenAnotherRowEntersAFilteredPage() {
+        // an update moved customer 5 out of the age filter and customer 3, same version, into it
+        CustomerPage before = new CustomerPage(List.of(
+                new Customer(5L, "Alex", "alex@mail.by", 30, 1L),
+                new Customer(9L, "Bob", "bob@mail.by", 31, 0L)), null);
+        CustomerPage after = new CustomerPage(List.of(
+                new Customer(3L, "Carl", "carl@mail.by", 30, 1L),
+                new Customer(9L, "Bob", "bob@mail.by", 31, 0L)), null);
+
+        assertThat(after.fingerprint()).isNotEqualTo(before.fingerprint());
+    }
+
+    @Test
+    void fingerprintDependsOnOrderVersionsAndNextCursor() {
+        Customer alex = new Customer(1L, "Alex", "alex@mail.by", 30, 0L);
+        Customer bob = new Customer(2L, "Bob", "bob@mail.by", 31, 0L);
+        CustomerPage page = new CustomerPage(List.of(alex, bob), null);
+
+        assertThat(new CustomerPage(List.of(alex, bob), null).fingerprint()).isEqualTo(page.fingerprint());
+        assertThat(new CustomerPage(List.of(bob, alex), null).fingerprint()).isNotEqualTo(page.fingerprint());
+        assertThat(new CustomerPage(List.of(alex, new Customer(2L, "Bob", "bob@mail.by", 31, 1L)), null)
+                .fingerprint()).isNotEqualTo(page.fingerprint());
+        assertThat(new CustomerPage(List.of(alex, bob), "next").fingerprint()).isNotEqualTo(page.fingerprint());
+    }
+}
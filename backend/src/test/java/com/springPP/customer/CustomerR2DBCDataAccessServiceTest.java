@@ -0,0 +1,107 @@
+package com.springPP.customer;
+
+import com.springPP.AbsractTestContainers;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2DBCDataAccessServiceTest extends AbsractTestContainers {
+
+    private CustomerR2DBCDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions
+                .parse(postgreSQLContainer.getJdbcUrl().replace("jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build();
+        underTest = new CustomerR2DBCDataAccessService(
+                DatabaseClient.create(ConnectionFactories.get(options))
+        );
+    }
+
+    @Test
+    void selectAllCustomers() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+        underTest.insertCustomerIfEmailAbsent(customer).block();
+
+        StepVerifier.create(underTest.selectAllCustomers().filter(c -> c.getEmail().equals(email)))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertAndSelectCustomerById() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+
+        Customer inserted = underTest.insertCustomerIfEmailAbsent(customer).block();
+        assertThat(inserted).isNotNull();
+
+        StepVerifier.create(underTest.selectCustomerById(inserted.getId()))
+                .assertNext(c -> {
+                    assertThat(c.getName()).isEqualTo(customer.getName());
+                    assertThat(c.getEmail()).isEqualTo(email);
+                    assertThat(c.getAge()).isEqualTo(20);
+                })
+                .verifyComplete();
+        StepVerifier.create(underTest.insertCustomerIfEmailAbsent(customer))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateCustomerIfChanged() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+        long id = underTest.insertCustomerIfEmailAbsent(customer).block().getId();
+
+        StepVerifier.create(underTest.updateCustomerIfChanged(new Customer(id, null, null, 21)))
+                .assertNext(c -> {
+                    assertThat(c.getAge()).isEqualTo(21);
+                    assertThat(c.getEmail()).isEqualTo(email);
+                })
+                .verifyComplete();
+        StepVerifier.create(underTest.updateCustomerIfChanged(new Customer(id, null, email, 21)))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteCustomerByIdReturning() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20
+        );
+        long id = underTest.insertCustomerIfEmailAbsent(customer).block().getId();
+
+        StepVerifier.create(underTest.deleteCustomerByIdReturning(id))
+                .assertNext(c -> assertThat(c.getId()).isEqualTo(id))
+                .verifyComplete();
+        StepVerifier.create(underTest.existsCustomerWithId(id))
+                .expectNext(false)
+                .verifyComplete();
+    }
+}
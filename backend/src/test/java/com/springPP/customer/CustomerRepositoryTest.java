@@ -6,11 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.ApplicationContext;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -22,6 +27,9 @@ class CustomerRepositoryTest extends AbsractTestContainers {
     @Autowired
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @BeforeEach
     void setUp() {
         underTestJPA.deleteAll();
@@ -43,6 +51,21 @@ class CustomerRepositoryTest extends AbsractTestContainers {
         assertThat(result).isTrue();
     }
 
+    @Test
+    void saveAllDrawsIdsFromPooledSequenceBlocks() {
+        long before = sequenceLastValue();
+        List<Customer> customers = IntStream.range(0, 60)
+                .mapToObj(i -> new Customer(faker.name().fullName(), UUID.randomUUID() + "@pooled.test", 20))
+                .toList();
+
+        List<Customer> saved = underTestJPA.saveAll(customers);
+        underTestJPA.flush();
+
+        assertThat(saved).extracting(Customer::getId).doesNotHaveDuplicates();
+        // 60 ids from blocks of 50 need at most two nextval calls instead of 60
+        assertThat((sequenceLastValue() - before) / 50).isLessThanOrEqualTo(2);
+    }
+
     @Test
     void existsCustomerByEmailFailsWhenEmailDoesNotExist() {
         String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
@@ -63,7 +86,7 @@ class CustomerRepositoryTest extends AbsractTestContainers {
 
         underTestJPA.save(customer);
 
-        int id = underTestJPA.findAll().stream()
+        long id = underTestJPA.findAll().stream()
                 .filter(c -> c.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -76,9 +99,117 @@ class CustomerRepositoryTest extends AbsractTestContainers {
     @Test
     void existsCustomerByIdWhenIdDoesNotExist() {
 
-        int id = -1;
+        long id = -1;
 
         var actual = underTestJPA.existsCustomerById(id);
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertIfEmailAbsent() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+
+        Optional<Customer> inserted = underTestJPA.insertIfEmailAbsent(faker.name().fullName(), email, 20);
+        Optional<Customer> duplicate = underTestJPA.insertIfEmailAbsent(faker.name().fullName(), email, 30);
+
+        assertThat(inserted).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+        assertThat(duplicate).isEmpty();
+    }
+
+    @Test
+    void updateIfChangedAndDeleteByIdReturning() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        long id = underTestJPA.insertIfEmailAbsent(faker.name().fullName(), email, 20)
+                .orElseThrow()
+                .getId();
+        entityManager.clear();
+
+        assertThat(underTestJPA.updateIfChanged(id, null, null, 21, null))
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(21));
+        assertThat(underTestJPA.updateIfChanged(id, null, null, 21, null)).isEmpty();
+        assertThat(underTestJPA.deleteByIdReturning(id))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+        assertThat(underTestJPA.deleteByIdReturning(id)).isEmpty();
+    }
+
+    @Test
+    void updateIfChangedBumpsVersionAndRejectsStaleVersion() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        Customer inserted = underTestJPA.insertIfEmailAbsent(faker.name().fullName(), email, 20).orElseThrow();
+        long id = inserted.getId();
+        assertThat(inserted.getVersion()).isZero();
+        entityManager.clear();
+
+        assertThat(underTestJPA.updateIfChanged(id, null, null, 21, 0L))
+                .hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1));
+        entityManager.clear();
+        assertThat(underTestJPA.updateIfChanged(id, null, null, 22, 0L)).isEmpty();
+        entityManager.clear();
+        assertThat(underTestJPA.findById(id))
+                .hasValueSatisfying(c -> {
+                    assertThat(c.getAge()).isEqualTo(21);
+                    assertThat(c.getVersion()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void updateAllIfChangedAndDeleteByIdsReturningIds() {
+        long id = underTestJPA.insertIfEmailAbsent(faker.name().fullName(),
+                faker.internet().safeEmailAddress() + " " + UUID.randomUUID(), 20).orElseThrow().getId();
+        entityManager.clear();
+
+        List<Object[]> rows = underTestJPA.updateAllIfChanged(
+                new Long[]{id, -1L}, new String[]{null, "Bob"}, new String[]{null, null}, new Integer[]{21, null});
+        entityManager.clear();
+
+        assertThat(rows).extracting(row -> ((Number) row[0]).longValue(), row -> row[1], row -> row[2])
+                .containsExactly(tuple(id, true, true), tuple(-1L, false, false));
+        assertThat(underTestJPA.findById(id)).hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(21));
+        assertThat(underTestJPA.deleteByIdsReturningIds(new Long[]{id, -1L})).containsExactly(id);
+    }
+
+    @Test
+    void selectCollectionVersionChangesOnEveryWrite() {
+        String email = faker.internet().safeEmailAddress() + " " + UUID.randomUUID();
+        CustomerCollectionVersion before = underTestJPA.selectCollectionVersion();
+        long id = underTestJPA.insertIfEmailAbsent(faker.name().fullName(), email, 20).orElseThrow().getId();
+        entityManager.clear();
+        CustomerCollectionVersion inserted = underTestJPA.selectCollectionVersion();
+        underTestJPA.updateIfChanged(id, null, null, 21, null);
+        entityManager.clear();
+        CustomerCollectionVersion updated = underTestJPA.selectCollectionVersion();
+
+        assertThat(inserted.count()).isEqualTo(before.count() + 1);
+        assertThat(inserted.maxId()).isEqualTo(id);
+        assertThat(updated.versionSum()).isEqualTo(inserted.versionSum() + 1);
+    }
+
+    @Test
+    void pageSpecificationFiltersAndOrdersByCollatedKey() {
+        String tag = UUID.randomUUID().toString();
+        for (String name : List.of("b", "B", "a_", "ab")) {
+            underTestJPA.save(new Customer(tag + name, UUID.randomUUID() + "@spec.test", 30));
+        }
+        CustomerFilter filter = new CustomerFilter(30, 30, tag, null);
+        CustomerSort byName = new CustomerSort(CustomerSort.Field.NAME, false);
+
+        List<Customer> first = underTestJPA.findBy(CustomerSpecifications.page(filter, byName, null),
+                query -> query.limit(2).all());
+        List<Customer> rest = underTestJPA.findBy(CustomerSpecifications.page(filter, byName, first.get(1)),
+                query -> query.limit(10).all());
+        List<Customer> underscore = underTestJPA.findBy(CustomerSpecifications.page(
+                new CustomerFilter(null, null, tag + "a_", null), CustomerSort.BY_ID, null),
+                query -> query.limit(10).all());
+
+        // "C" collation: upper case sorts before lower case, and "_" before letters
+        assertThat(first).extracting(Customer::getName).containsExactly(tag + "B", tag + "a_");
+        assertThat(rest).extracting(Customer::getName).containsExactly(tag + "ab", tag + "b");
+        assertThat(underscore).extracting(Customer::getName).containsExactly(tag + "a_");
+    }
+
+    private long sequenceLastValue() {
+        return ((Number) entityManager.getEntityManager()
+                .createNativeQuery("SELECT last_value FROM customer_id_seq")
+                .getSingleResult()).longValue();
+    }
+}
@@ -18,17 +18,19 @@ class CustomerRowMapperTest {
     void mapRow() throws SQLException {
         CustomerRowMapper customerRowMapper = new CustomerRowMapper();
         ResultSet resultSet = mock(ResultSet.class);
-        Mockito.when(resultSet.getInt("id")).thenReturn(1);
+        Mockito.when(resultSet.getLong("id")).thenReturn(1L);
         Mockito.when(resultSet.getString("name")).thenReturn("John");
         Mockito.when(resultSet.getString("email")).thenReturn("123@b.by");
         Mockito.when(resultSet.getInt("age")).thenReturn(22);
+        Mockito.when(resultSet.getLong("version")).thenReturn(3L);
 
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
 
         Customer expected = new Customer(
-                1, "John", "123@b.by", 22
+                1L, "John", "123@b.by", 22
         );
 
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(3L);
     }
 }
\ No newline at end of file
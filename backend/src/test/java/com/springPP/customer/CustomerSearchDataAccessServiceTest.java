@@ -0,0 +1,100 @@
+package com.springPP.customer;
+
+import com.springPP.AbsractTestContainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerSearchDataAccessServiceTest extends AbsractTestContainers {
+
+    private CustomerSearchDataAccessService underTest;
+    private CustomerJDBCDataAccessService customers;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerSearchDataAccessService(jdbcTemplate, customerRowMapper);
+        customers = new CustomerJDBCDataAccessService(jdbcTemplate, customerRowMapper);
+        // the fuzzy settings are transaction-local, as they are behind the @Transactional proxy
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    @Test
+    void findsByWordPrefixes() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        customers.insertCustomer(new Customer("Zebedee Qx" + tag, "zeb." + tag + "@mail.by", 40));
+        customers.insertCustomer(new Customer("Zebulon Qx" + tag, "zebulon." + tag + "@mail.by", 41));
+
+        List<Customer> found = search("zebed qx" + tag, 10);
+
+        // the other Zebulon may still come back as a fuzzy match, but only after the word match
+        assertThat(found).first().extracting(Customer::getName).isEqualTo("Zebedee Qx" + tag);
+    }
+
+    @Test
+    void ranksExactWordMatchFirstAmongManyPrefixHits() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        List<Customer> prefixHits = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            prefixHits.add(new Customer("Jennifer Qx" + tag, "jennifer" + i + "." + tag + "@mail.by", 20));
+        }
+        customers.insertCustomers(prefixHits);
+        // inserted last, so it is not among the first rows a scan in table order would return
+        customers.insertCustomer(new Customer("Jen Qx" + tag, "jen." + tag + "@mail.by", 20));
+
+        assertThat(search("jen qx" + tag, 1)).extracting(Customer::getName).containsExactly("Jen Qx" + tag);
+    }
+
+    @Test
+    void findsMistypedEmailAndRanksClosestFirst() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        customers.insertCustomer(new Customer("Jonathan Smithers", "jonathan.smithers." + tag + "@mail.by", 30));
+        customers.insertCustomer(new Customer("Jonas Smit", "jonas.smit." + tag + "@mail.by", 31));
+
+        List<Customer> found = search("jonathon.smithers." + tag + "@mial.by", 10);
+
+        assertThat(found).isNotEmpty();
+        assertThat(found.get(0).getEmail()).isEqualTo("jonathan.smithers." + tag + "@mail.by");
+    }
+
+    @Test
+    void limitsResults() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 5; i++) {
+            customers.insertCustomer(new Customer("Limited " + tag, "limited" + i + "." + tag + "@mail.by", 20));
+        }
+
+        assertThat(search("limited " + tag, 3)).hasSize(3);
+    }
+
+    @Test
+    void findsMistypedName() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        customers.insertCustomer(new Customer("Bartholomew Kx" + tag, "bart." + tag + "@mail.by", 30));
+
+        assertThat(search("Bartholomw Kx" + tag, 10))
+                .extracting(Customer::getEmail).contains("bart." + tag + "@mail.by");
+    }
+
+    @Test
+    void prefixQueryKeepsOnlyWords() {
+        assertThat(CustomerSearchDataAccessService.prefixQuery("Jen  smi")).isEqualTo("jen:* & smi:*");
+        assertThat(CustomerSearchDataAccessService.prefixQuery("o'brien & (xy | !z)"))
+                .isEqualTo("brien:* & xy:*");
+        assertThat(CustomerSearchDataAccessService.prefixQuery("@@ -- a !")).isNull();
+    }
+
+    private List<Customer> search(String text, int limit) {
+        return transactionTemplate.execute(status -> underTest.searchCustomers(text, limit));
+    }
+}
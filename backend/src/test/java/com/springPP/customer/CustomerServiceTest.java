@@ -3,6 +3,8 @@ package com.springPP.customer;
 import com.springPP.exception.DuplicateResourceException;
 import com.springPP.exception.NoCustomerDataEditedException;
 import com.springPP.exception.NoCustomerException;
+import com.springPP.exception.PreconditionFailedException;
+import com.springPP.exception.RequestValidationException;
 import com.springPP.exception.ResourceNotFound;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,8 +13,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -21,13 +30,22 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class CustomerServiceTest {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 3;
+    private static final int MAX_SEARCH_LIMIT = 50;
+
     @Mock
     private CustomerDAO customerDAO;
+    @Mock
+    private CustomerCopyImporter customerCopyImporter;
+    @Mock
+    private CustomerSearchDataAccessService customerSearch;
     private CustomerService underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(customerDAO);
+        underTest = new CustomerService(customerDAO, customerCopyImporter, customerSearch,
+                MAX_PAGE_SIZE, MAX_BATCH_SIZE, MAX_SEARCH_LIMIT);
     }
 
     @Test
@@ -36,9 +54,139 @@ class CustomerServiceTest {
         verify(customerDAO).selectAllCustomers();
     }
 
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@mail.by", 20),
+                new Customer(2L, "Bob", "bob@mail.by", 21),
+                new Customer(3L, "John", "john@mail.by", 22)
+        );
+        when(customerDAO.selectCustomersAfterId(0L, 3)).thenReturn(customers);
+
+        CustomerPage page = underTest.getCustomers(null, 2);
+
+        assertThat(page.customers()).containsExactly(customers.get(0), customers.get(1));
+        assertThat(page.nextCursor()).isNotNull();
+
+        underTest.getCustomers(page.nextCursor(), 2);
+        verify(customerDAO).selectCustomersAfterId(2L, 3);
+    }
+
+    @Test
+    void getCustomersReturnsNoCursorOnLastPage() {
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@mail.by", 20)
+        );
+        when(customerDAO.selectCustomersAfterId(0L, 3)).thenReturn(customers);
+
+        CustomerPage page = underTest.getCustomers(null, 2);
+
+        assertThat(page.customers()).containsExactly(customers.get(0));
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenPageSizeExceedsMax() {
+        assertThatThrownBy(() -> underTest.getCustomers(null, MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("page size must be between 1 and " + MAX_PAGE_SIZE);
+
+        verify(customerDAO, never()).selectCustomersAfterId(any(), anyInt());
+    }
+
+    @Test
+    void getCustomersWithFilterAndSortCarriesSortKeyInCursor() {
+        CustomerFilter filter = new CustomerFilter(20, 30, "A", null);
+        CustomerSort byName = new CustomerSort(CustomerSort.Field.NAME, true);
+        List<Customer> customers = List.of(
+                new Customer(7L, "Anna|B", "anna@mail.by", 25),
+                new Customer(3L, "Alex", "alex@mail.by", 20)
+        );
+        when(customerDAO.selectCustomers(filter, byName, null, 2)).thenReturn(customers);
+
+        CustomerPage page = underTest.getCustomers(null, 1, filter, "name,desc");
+
+        assertThat(page.customers()).containsExactly(customers.get(0));
+        underTest.getCustomers(page.nextCursor(), 1, filter, "name,desc");
+        ArgumentCaptor<Customer> after = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO, times(2)).selectCustomers(eq(filter), eq(byName), after.capture(), eq(2));
+        assertThat(after.getAllValues().get(1).getId()).isEqualTo(7L);
+        assertThat(after.getAllValues().get(1).getName()).isEqualTo("Anna|B");
+        verify(customerDAO, never()).selectCustomersAfterId(any(), anyInt());
+    }
+
+    @Test
+    void willThrowWhenCursorWasIssuedForAnotherSort() {
+        CustomerFilter filter = new CustomerFilter(null, null, null, "a");
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@mail.by", 20),
+                new Customer(2L, "Ann", "ann@mail.by", 21)
+        );
+        when(customerDAO.selectCustomers(filter, new CustomerSort(CustomerSort.Field.AGE, false), null, 2))
+                .thenReturn(customers);
+        String cursor = underTest.getCustomers(null, 1, filter, "age").nextCursor();
+
+        assertThatThrownBy(() -> underTest.getCustomers(cursor, 1, filter, "email"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageContaining("for sort email");
+    }
+
+    @Test
+    void willThrowWhenSortOrFilterIsInvalid() {
+        assertThatThrownBy(() -> underTest.getCustomers(null, 10, CustomerFilter.NONE, "salary"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageStartingWith("invalid sort salary");
+        assertThatThrownBy(() -> underTest.getCustomers(null, 10, CustomerFilter.NONE, "name,up"))
+                .isInstanceOf(RequestValidationException.class);
+        assertThatThrownBy(() -> underTest.getCustomers(null, 10, new CustomerFilter(40, 30, null, null), "id"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("minAge 40 is greater than maxAge 30");
+        assertThatThrownBy(() -> underTest.getCustomers(null, 10, new CustomerFilter(null, null, "", null), "id"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("prefix filters must not be empty");
+
+        verify(customerDAO, never()).selectCustomers(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchCustomersStripsQuery() {
+        List<Customer> found = List.of(new Customer(1L, "Alex", "alex@mail.by", 20));
+        when(customerSearch.searchCustomers("ale", 10)).thenReturn(found);
+
+        assertThat(underTest.searchCustomers("  ale ", 10)).isEqualTo(found);
+    }
+
+    @Test
+    void willThrowWhenSearchQueryOrLimitIsInvalid() {
+        assertThatThrownBy(() -> underTest.searchCustomers(" ab ", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("search query must be between 3 and 100 characters");
+        assertThatThrownBy(() -> underTest.searchCustomers("a".repeat(101), 10))
+                .isInstanceOf(RequestValidationException.class);
+        assertThatThrownBy(() -> underTest.searchCustomers("alex", MAX_SEARCH_LIMIT + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+
+        verifyNoInteractions(customerSearch);
+    }
+
+    @Test
+    void willThrowWhenCursorIsInvalid() {
+        assertThatThrownBy(() -> underTest.getCustomers("not a cursor", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid cursor not a cursor");
+    }
+
+    @Test
+    void exportCustomers() {
+        Consumer<Customer> action = customer -> {};
+        underTest.exportCustomers(action);
+        verify(customerDAO).forEachCustomer(action);
+    }
+
     @Test
     void canGetCustomer() {
-        int id = 1;
+        long id = 1;
         Customer customer = new Customer(
                 id,
                 "Alex",
@@ -53,7 +201,7 @@ class CustomerServiceTest {
 
     @Test
     void WillThrowWhenGetCustomerNotFound() {
-        int id = -1;
+        long id = -1;
         Mockito.when(customerDAO.selectCustomerById(id))
                 .thenReturn(Optional.empty());
         assertThatThrownBy(() -> underTest.getCustomer(id))
@@ -68,18 +216,19 @@ class CustomerServiceTest {
 
         String email = "test@mail.by";
 
-        when(customerDAO.existsPersonWithEmail(email))
-                .thenReturn(false);
         CustomerRegistrationRequest customerRegistrationRequest =
                 new CustomerRegistrationRequest(
                 "Alex", email, 20
         );
+        when(customerDAO.insertCustomerIfEmailAbsent(any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
         underTest.addCustomer(customerRegistrationRequest);
 
         ArgumentCaptor<Customer> customerCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
-        verify(customerDAO).insertCustomer(customerCaptor.capture());
+        verify(customerDAO).insertCustomerIfEmailAbsent(customerCaptor.capture());
 
         Customer capturedCustomer = customerCaptor.getValue();
 
@@ -90,6 +239,7 @@ class CustomerServiceTest {
                 isEqualTo(customerRegistrationRequest.email());
         assertThat(capturedCustomer.getAge())
                 .isEqualTo(customerRegistrationRequest.age());
+        verify(customerDAO, never()).existsPersonWithEmail(any());
     }
 
     @Test
@@ -97,8 +247,8 @@ class CustomerServiceTest {
 
         String email = "test@mail.by";
 
-        when(customerDAO.existsPersonWithEmail(email))
-                .thenReturn(true);
+        when(customerDAO.insertCustomerIfEmailAbsent(any()))
+                .thenReturn(Optional.empty());
 
         CustomerRegistrationRequest customerRegistrationRequest =
                 new CustomerRegistrationRequest(
@@ -108,245 +258,408 @@ class CustomerServiceTest {
         assertThatThrownBy(() -> underTest.addCustomer(customerRegistrationRequest))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Customer with email " + email + " already exists");
+    }
+
+    @Test
+    void addCustomers() {
+        String takenEmail = "taken@mail.by";
+        String newEmail = "new@mail.by";
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", newEmail, 20),
+                new CustomerRegistrationRequest("Bob", takenEmail, 21),
+                new CustomerRegistrationRequest("John", newEmail, 22)
+        );
+        when(customerDAO.selectExistingEmails(List.of(newEmail, takenEmail, newEmail)))
+                .thenReturn(Set.of(takenEmail));
+
+        List<CustomerBatchItemResult> results = underTest.addCustomers(requests);
+
+        assertThat(results).extracting(CustomerBatchItemResult::status).containsExactly(
+                CustomerBatchItemResult.Status.CREATED,
+                CustomerBatchItemResult.Status.DUPLICATE,
+                CustomerBatchItemResult.Status.DUPLICATE
+        );
+        verify(customerDAO).insertCustomers(List.of(new Customer("Alex", newEmail, 20)));
+    }
+
+    @Test
+    void addCustomersRechecksEmailsWhenInsertHitsStoredEmail() {
+        String stored = "stored@mail.by";
+        String newEmail = "new@mail.by";
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", stored, 20),
+                new CustomerRegistrationRequest("Bob", newEmail, 21)
+        );
+        when(customerDAO.selectExistingEmails(List.of(stored, newEmail)))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of(stored));
+        doThrow(new DuplicateKeyException("email")).when(customerDAO).insertCustomers(List.of(
+                new Customer("Alex", stored, 20), new Customer("Bob", newEmail, 21)));
+
+        List<CustomerBatchItemResult> results = underTest.addCustomers(requests);
+
+        assertThat(results).extracting(CustomerBatchItemResult::status).containsExactly(
+                CustomerBatchItemResult.Status.DUPLICATE,
+                CustomerBatchItemResult.Status.CREATED
+        );
+        verify(customerDAO).insertCustomers(List.of(new Customer("Bob", newEmail, 21)));
+    }
+
+    @Test
+    void willThrowWhenRecheckedBatchStillConflicts() {
+        String email = "racy@mail.by";
+        when(customerDAO.selectExistingEmails(List.of(email))).thenReturn(Set.of());
+        doThrow(new DuplicateKeyException("email")).when(customerDAO).insertCustomers(any());
+
+        assertThatThrownBy(() -> underTest.addCustomers(List.of(new CustomerRegistrationRequest("Alex", email, 20))))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("an email in the batch was registered concurrently, retry the batch");
+        verify(customerDAO, times(2)).insertCustomers(any());
+    }
+
+    @Test
+    void addCustomersRejectsItemsWithMissingFields() {
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "test@mail.by", null)
+        );
+
+        List<CustomerBatchItemResult> results = underTest.addCustomers(requests);
+
+        assertThat(results).extracting(CustomerBatchItemResult::status)
+                .containsExactly(CustomerBatchItemResult.Status.INVALID);
+        verify(customerDAO, never()).insertCustomers(any());
+    }
+
+    @Test
+    void willThrowWhenBatchIsTooLarge() {
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("A", "a@mail.by", 20),
+                new CustomerRegistrationRequest("B", "b@mail.by", 20),
+                new CustomerRegistrationRequest("C", "c@mail.by", 20),
+                new CustomerRegistrationRequest("D", "d@mail.by", 20)
+        );
+
+        assertThatThrownBy(() -> underTest.addCustomers(requests))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("batch size must be between 1 and " + MAX_BATCH_SIZE);
+
+        verify(customerDAO, never()).selectExistingEmails(any());
+    }
+
+    @Test
+    void importCustomersCsv() {
+        InputStream csv = new ByteArrayInputStream("name,email,age\n".getBytes());
+        CustomerImportResult expected = new CustomerImportResult(0, 0, 0);
+        when(customerCopyImporter.importCsv(csv)).thenReturn(expected);
+
+        CustomerImportResult actual = underTest.importCustomersCsv(csv);
 
-        verify(customerDAO, never()).insertCustomer(any());
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void willThrowWhenImportDataIsInvalid() {
+        InputStream ndjson = new ByteArrayInputStream("{".getBytes());
+        when(customerCopyImporter.importNdjson(ndjson))
+                .thenThrow(new DataIntegrityViolationException("invalid input syntax for type json"));
+
+        assertThatThrownBy(() -> underTest.importCustomersNdjson(ndjson))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid import data: invalid input syntax for type json");
     }
 
     @Test
     void deleteCustomerById() {
-        int id = 1;
+        long id = 1;
 
-        when(customerDAO.existsCustomerWithId(id))
-                .thenReturn(true);
+        when(customerDAO.deleteCustomerByIdReturning(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", 20)));
 
         underTest.deleteCustomerById(id);
-        verify(customerDAO).deleteCustomerById(id);
+        verify(customerDAO).deleteCustomerByIdReturning(id);
+        verify(customerDAO, never()).existsCustomerWithId(any());
+    }
+
+    @Test
+    void deleteCustomersReportsIdsThatWereNotFound() {
+        when(customerDAO.deleteCustomersByIds(List.of(3L, 1L, 2L))).thenReturn(List.of(1L, 3L));
+
+        CustomerBulkDeleteResult result = underTest.deleteCustomers(List.of(3L, 1L, 3L, 2L));
+
+        assertThat(result).isEqualTo(new CustomerBulkDeleteResult(List.of(3L, 1L), List.of(2L)));
+    }
+
+    @Test
+    void willThrowWhenBulkDeleteIsEmptyOrTooLarge() {
+        assertThatThrownBy(() -> underTest.deleteCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("batch size must be between 1 and " + MAX_BATCH_SIZE);
+        assertThatThrownBy(() -> underTest.deleteCustomers(List.of(1L, 2L, 3L, 4L)))
+                .isInstanceOf(RequestValidationException.class);
+        verifyNoInteractions(customerDAO);
     }
 
     @Test
     void willThrowWhenIdDoesNotExistInDeleteCustomerById() {
-        int id = -1;
+        long id = -1;
 
-        when(customerDAO.existsCustomerWithId(id))
-                .thenReturn(false);
+        when(customerDAO.deleteCustomerByIdReturning(id))
+                .thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> underTest.deleteCustomerById(id))
                 .isInstanceOf(NoCustomerException.class)
                 .hasMessage("Customer with id " + id + " not found");
-
-        verify(customerDAO, never()).deleteCustomerById(any());
     }
 
     @Test
     void canUpdateAllCustomerProperties() {
-        int id = 1;
-        String oldName = "Alex";
+        long id = 1;
         String newName = "Bob";
-        String oldEmail = "test@mail.by";
         String newEmail = "111@bb.us";
-        int oldAge = 20;
         int newAge = 99;
 
-        when(customerDAO.existsPersonWithEmail(oldEmail))
-                .thenReturn(false);
-
-        CustomerRegistrationRequest customerRegistrationRequest =
-                new CustomerRegistrationRequest(
-                        oldName, oldEmail, oldAge
-                );
-
-        underTest.addCustomer(customerRegistrationRequest);
-
-        ArgumentCaptor<Customer> customerCaptor = ArgumentCaptor.forClass(
-                Customer.class
-        );
-        verify(customerDAO).insertCustomer(customerCaptor.capture());
-
-        Customer capturedCustomer = customerCaptor.getValue();
-
-        Mockito.when(customerDAO.selectCustomerById(id))
-                .thenReturn(Optional.of(capturedCustomer));
+        Customer updated = new Customer(id, newName, newEmail, newAge);
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.of(updated));
 
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
                 newName, newEmail, newAge
         );
 
-        underTest.updateCustomer(id, newCustomerRegistrationRequest);
+        underTest.updateCustomer(id, newCustomerRegistrationRequest, null);
 
-        ArgumentCaptor<Customer> updatedCustomerCaptor = ArgumentCaptor.forClass(
+        ArgumentCaptor<Customer> changesCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
-        verify(customerDAO).updateCustomer(updatedCustomerCaptor.capture());
+        verify(customerDAO).updateCustomerIfChanged(changesCaptor.capture());
 
-        Customer updatedCustomer = updatedCustomerCaptor.getValue();
+        Customer changes = changesCaptor.getValue();
 
-        assertThat(updatedCustomer.getId()).isNull();
-        assertThat(updatedCustomer.getName()).
+        assertThat(changes.getId()).isEqualTo(id);
+        assertThat(changes.getName()).
                 isEqualTo(newName);
-        assertThat(updatedCustomer.getEmail()).
+        assertThat(changes.getEmail()).
                 isEqualTo(newEmail);
-        assertThat(updatedCustomer.getAge())
+        assertThat(changes.getAge())
                 .isEqualTo(newAge);
+        verify(customerDAO, never()).selectCustomerById(any());
+        verify(customerDAO, never()).existsPersonWithEmail(any());
     }
 
     @Test
     void updateCustomerName() {
-        int id = 1;
-        String oldName = "Alex";
+        long id = 1;
         String newName = "Bob";
-        String email = "test@mail.by";
 
-        Customer customer = new Customer(
-                oldName, email, 20
-        );
-
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Optional.of(new Customer(id, newName, "test@mail.by", 20)));
 
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
                 newName, null, null
         );
 
-        underTest.updateCustomer(id, newCustomerRegistrationRequest);
+        underTest.updateCustomer(id, newCustomerRegistrationRequest, null);
 
-        ArgumentCaptor<Customer> updatedCustomerCaptor = ArgumentCaptor.forClass(
+        ArgumentCaptor<Customer> changesCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
 
-        verify(customerDAO).updateCustomer(updatedCustomerCaptor.capture());
+        verify(customerDAO).updateCustomerIfChanged(changesCaptor.capture());
 
-        Customer updatedCustomer = updatedCustomerCaptor.getValue();
+        Customer changes = changesCaptor.getValue();
 
-        assertThat(updatedCustomer.getId()).isNull();
-        assertThat(updatedCustomer.getName()).
+        assertThat(changes.getId()).isEqualTo(id);
+        assertThat(changes.getName()).
                 isEqualTo(newName);
-        assertThat(updatedCustomer.getEmail()).
-                isEqualTo(customer.getEmail());
-        assertThat(updatedCustomer.getAge())
-                .isEqualTo(customer.getAge());
+        assertThat(changes.getEmail()).isNull();
+        assertThat(changes.getAge()).isNull();
     }
 
     @Test
     void updateCustomerEmail() {
-        int id = 1;
-        String oldName = "Alex";
-        String newName = "Bob";
-        String email = "test@mail.by";
+        long id = 1;
         String newEmail = "bbb@i.co";
 
-        Customer customer = new Customer(
-                oldName, email, 20
-        );
-
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Optional.of(new Customer(id, "Alex", newEmail, 20)));
 
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
                 null, newEmail, null
         );
 
-        underTest.updateCustomer(id, newCustomerRegistrationRequest);
+        underTest.updateCustomer(id, newCustomerRegistrationRequest, null);
 
-        ArgumentCaptor<Customer> updatedCustomerCaptor = ArgumentCaptor.forClass(
+        ArgumentCaptor<Customer> changesCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
 
-        verify(customerDAO).updateCustomer(updatedCustomerCaptor.capture());
+        verify(customerDAO).updateCustomerIfChanged(changesCaptor.capture());
 
-        Customer updatedCustomer = updatedCustomerCaptor.getValue();
+        Customer changes = changesCaptor.getValue();
 
-        assertThat(updatedCustomer.getId()).isNull();
-        assertThat(updatedCustomer.getName()).
-                isEqualTo(customer.getName());
-        assertThat(updatedCustomer.getEmail()).
+        assertThat(changes.getId()).isEqualTo(id);
+        assertThat(changes.getName()).isNull();
+        assertThat(changes.getEmail()).
                 isEqualTo(newEmail);
-        assertThat(updatedCustomer.getAge())
-                .isEqualTo(customer.getAge());
+        assertThat(changes.getAge()).isNull();
     }
 
     @Test
     void updateCustomerAge() {
-        int id = 1;
-        String name = "Alex";
-        String email = "test@mail.by";
-        int age = 20;
+        long id = 1;
         int newAge = 99;
 
-        Customer customer = new Customer(
-                name, email, age
-        );
-
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", newAge)));
 
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
                 null, null, newAge
         );
 
-        underTest.updateCustomer(id, newCustomerRegistrationRequest);
+        underTest.updateCustomer(id, newCustomerRegistrationRequest, null);
 
-        ArgumentCaptor<Customer> updatedCustomerCaptor = ArgumentCaptor.forClass(
+        ArgumentCaptor<Customer> changesCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
 
-        verify(customerDAO).updateCustomer(updatedCustomerCaptor.capture());
+        verify(customerDAO).updateCustomerIfChanged(changesCaptor.capture());
 
-        Customer updatedCustomer = updatedCustomerCaptor.getValue();
+        Customer changes = changesCaptor.getValue();
 
-        assertThat(updatedCustomer.getId()).isNull();
-        assertThat(updatedCustomer.getName()).
-                isEqualTo(customer.getName());
-        assertThat(updatedCustomer.getEmail()).
-                isEqualTo(customer.getEmail());
-        assertThat(updatedCustomer.getAge())
+        assertThat(changes.getId()).isEqualTo(id);
+        assertThat(changes.getName()).isNull();
+        assertThat(changes.getEmail()).isNull();
+        assertThat(changes.getAge())
                 .isEqualTo(newAge);
     }
 
     @Test
     void willThrowWhenTryingUpdatingEmailAlreadyTaken() {
-        int id = 1;
-        String oldName = "Alex";
-        String email = "test@mail.by";
+        long id = 1;
         String newEmail = "nomore@k.us";
 
-        Customer customer = new Customer(
-                id, oldName, email, 20
-        );
-
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
                 null, newEmail, null
         );
 
-        when(customerDAO.existsPersonWithEmail(newEmail)).thenReturn(true);
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenThrow(new DuplicateKeyException("customer_email_key"));
 
-        assertThatThrownBy(() -> underTest.updateCustomer(id, newCustomerRegistrationRequest))
+        assertThatThrownBy(() -> underTest.updateCustomer(id, newCustomerRegistrationRequest, null))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
-
-        verify(customerDAO, never()).updateCustomer(any());
     }
 
     @Test
     void willThrowWhenCustomerHasNoChanges() {
-        int id = 1;
-        String oldName = "Alex";
-        String oldEmail = "test@mail.by";
-        int oldAge = 20;
+        long id = 1;
 
-        Customer customer = new Customer(
-                id, oldName, oldEmail, oldAge
-        );
-
-        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.empty());
+        when(customerDAO.existsCustomerWithId(id)).thenReturn(true);
 
         CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
-                customer.getName(), customer.getEmail(), customer.getAge()
+                "Alex", "test@mail.by", 20
         );
 
-        assertThatThrownBy(() -> underTest.updateCustomer(id, newCustomerRegistrationRequest))
+        assertThatThrownBy(() -> underTest.updateCustomer(id, newCustomerRegistrationRequest, null))
                 .isInstanceOf(NoCustomerDataEditedException.class)
                 .hasMessage("no data changes found");
+    }
+
+    @Test
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        long id = -1;
+
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.empty());
+        when(customerDAO.existsCustomerWithId(id)).thenReturn(false);
+
+        CustomerEditRequest newCustomerRegistrationRequest = new CustomerEditRequest(
+                "Alex", null, null
+        );
+
+        assertThatThrownBy(() -> underTest.updateCustomer(id, newCustomerRegistrationRequest, null))
+                .isInstanceOf(ResourceNotFound.class)
+                .hasMessage("Customer with id " + id + " not found");
+    }
+
+    @Test
+    void updateCustomerWithExpectedVersionReturnsNewVersion() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Optional.of(new Customer(id, "Bob", "test@mail.by", 20, 4L)));
+
+        Customer updated = underTest.updateCustomer(id, new CustomerEditRequest("Bob", null, null), 3L);
 
-        verify(customerDAO, never()).updateCustomer(any());
+        ArgumentCaptor<Customer> changesCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).updateCustomerIfChanged(changesCaptor.capture());
+        assertThat(changesCaptor.getValue().getVersion()).isEqualTo(3L);
+        assertThat(updated.getVersion()).isEqualTo(4L);
     }
 
-}
\ No newline at end of file
+    @Test
+    void willThrowWhenExpectedVersionIsStale() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.empty());
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", 20, 4L)));
+
+        assertThatThrownBy(() -> underTest.updateCustomer(id, new CustomerEditRequest("Bob", null, null), 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Customer with id 1 is no longer at version 3");
+    }
+
+    @Test
+    void willThrowWhenExpectedVersionMatchesButNothingChanged() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.empty());
+        when(customerDAO.selectCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "test@mail.by", 20, 3L)));
+
+        assertThatThrownBy(() -> underTest.updateCustomer(id, new CustomerEditRequest("Alex", null, null), 3L))
+                .isInstanceOf(NoCustomerDataEditedException.class);
+    }
+
+    @Test
+    void updateCustomersPassesUnversionedChanges() {
+        CustomerBulkUpdateResult result = new CustomerBulkUpdateResult(List.of(1L), List.of(), List.of(9L));
+        when(customerDAO.updateCustomersIfChanged(List.of(
+                new Customer(1L, null, null, 30),
+                new Customer(9L, "Bob", null, null)))).thenReturn(result);
+
+        assertThat(underTest.updateCustomers(List.of(
+                new CustomerBulkEditRequest(1L, null, null, 30),
+                new CustomerBulkEditRequest(9L, "Bob", null, null)))).isSameAs(result);
+    }
+
+    @Test
+    void willThrowWhenBulkUpdateRepeatsOrMissesIds() {
+        assertThatThrownBy(() -> underTest.updateCustomers(List.of(
+                new CustomerBulkEditRequest(1L, null, null, 30),
+                new CustomerBulkEditRequest(1L, "Bob", null, null))))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("every customer in the batch needs its own id");
+        assertThatThrownBy(() -> underTest.updateCustomers(List.of(
+                new CustomerBulkEditRequest(null, null, null, 30))))
+                .isInstanceOf(RequestValidationException.class);
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void willThrowWhenBulkUpdateTakesAnEmail() {
+        when(customerDAO.updateCustomersIfChanged(any())).thenThrow(new DuplicateKeyException("email"));
+
+        assertThatThrownBy(() -> underTest.updateCustomers(List.of(
+                new CustomerBulkEditRequest(1L, null, "taken@mail.by", null))))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("an email in the batch is already taken, no customer was updated");
+    }
+
+    @Test
+    void willThrowNotFoundWhenVersionedUpdateTargetsMissingCustomer() {
+        long id = -1;
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Optional.empty());
+        when(customerDAO.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> underTest.updateCustomer(id, new CustomerEditRequest("Bob", null, null), 3L))
+                .isInstanceOf(ResourceNotFound.class);
+    }
+}
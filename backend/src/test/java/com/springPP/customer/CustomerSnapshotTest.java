@@ -0,0 +1,115 @@
+package com.springPP.customer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        OffHeapCustomerStore.Builder builder = OffHeapCustomerStore.builder();
+        for (int id = 1; id <= 1000; id++) {
+            builder.add(new Customer(id * 2L, "Customer " + id, "customer-" + id + "@mail.by", 18 + id % 80));
+        }
+        builder.add(new Customer(5000L, "Łukasz Żółć", "łukasz@пример.by", 30, 7L));
+        Path path = directory.resolve("customers.snapshot");
+
+        CustomerSnapshot.write(builder.build(), path);
+        OffHeapCustomerStore loaded = CustomerSnapshot.read(path);
+
+        assertThat(loaded.size()).isEqualTo(1001);
+        assertThat(loaded.highWaterMark()).isEqualTo(5000);
+        assertThat(loaded.customerAt(loaded.rowOfId(1234)))
+                .isEqualTo(new Customer(1234L, "Customer 617", "customer-617@mail.by", 18 + 617 % 80));
+        assertThat(loaded.customerAt(loaded.rowOfEmail("łukasz@пример.by")).getName()).isEqualTo("Łukasz Żółć");
+        assertThat(loaded.customerAt(loaded.rowOfId(5000)).getVersion()).isEqualTo(7);
+        assertThat(loaded.versionAt(0)).isZero();
+        assertThat(Files.exists(directory.resolve("customers.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    void roundTripOfEmptyStore() throws IOException {
+        Path path = directory.resolve("customers.snapshot");
+
+        CustomerSnapshot.write(OffHeapCustomerStore.empty(), path);
+        OffHeapCustomerStore loaded = CustomerSnapshot.read(path);
+
+        assertThat(loaded.size()).isZero();
+        assertThat(loaded.highWaterMark()).isZero();
+        assertThat(Files.size(path)).isEqualTo(CustomerSnapshot.HEADER_BYTES + 2 * Integer.BYTES
+                + 3 * OffHeapCustomerStore.tableSlots(0) * Integer.BYTES);
+    }
+
+    @Test
+    void storeWithAppendedRowsRoundTrips() throws IOException {
+        OffHeapCustomerStore store = OffHeapCustomerStore.builder()
+                .add(new Customer(1L, "Alex", "alex@mail.by", 20))
+                .build()
+                .withAppended(List.of(new Customer(4L, "Bob", "bob@mail.by", 30)));
+        Path path = directory.resolve("customers.snapshot");
+
+        CustomerSnapshot.write(store, path);
+        OffHeapCustomerStore loaded = CustomerSnapshot.read(path);
+
+        assertThat(loaded.customerAt(loaded.rowOfEmail("bob@mail.by")))
+                .isEqualTo(new Customer(4L, "Bob", "bob@mail.by", 30));
+        assertThat(loaded.customerAt(loaded.rowOfId(1)).getEmail()).isEqualTo("alex@mail.by");
+    }
+
+    @Test
+    void willThrowWhenBodyIsCorrupted() throws IOException {
+        Path path = directory.resolve("customers.snapshot");
+        CustomerSnapshot.write(OffHeapCustomerStore.builder()
+                .add(new Customer(1L, "Alex", "alex@mail.by", 20))
+                .build(), path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write('X');
+        }
+
+        assertThatThrownBy(() -> CustomerSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum mismatch");
+    }
+
+    @Test
+    void willThrowOnUnsupportedVersion() throws IOException {
+        Path path = directory.resolve("customers.snapshot");
+        CustomerSnapshot.write(OffHeapCustomerStore.empty(), path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(4);
+            file.write(CustomerSnapshot.VERSION + 1);
+        }
+
+        assertThatThrownBy(() -> CustomerSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unsupported version " + (CustomerSnapshot.VERSION + 1));
+    }
+
+    @Test
+    void willThrowWhenFileIsTruncated() throws IOException {
+        Path path = directory.resolve("customers.snapshot");
+        CustomerSnapshot.write(OffHeapCustomerStore.builder()
+                .add(new Customer(1L, "Alex", "alex@mail.by", 20))
+                .build(), path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        assertThatThrownBy(() -> CustomerSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("header does not match");
+    }
+}
@@ -0,0 +1,94 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailIndexedCustomerDAOTest {
+
+    @Mock
+    private CustomerDAO customerDAO;
+    private CustomerEmailIndex emailIndex;
+    private EmailIndexedCustomerDAO underTest;
+
+    @BeforeEach
+    void setUp() {
+        emailIndex = new CustomerEmailIndex(1_000, 0.01);
+        underTest = new EmailIndexedCustomerDAO(customerDAO, emailIndex, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void existsPersonWithEmailSkipsDatabaseOnDefiniteMiss() {
+        emailIndex.markReady();
+
+        boolean actual = underTest.existsPersonWithEmail("test@mail.by");
+
+        assertThat(actual).isFalse();
+        verify(customerDAO, never()).existsPersonWithEmail(any());
+    }
+
+    @Test
+    void existsPersonWithEmailDelegatesOnPossibleHit() {
+        String email = "test@mail.by";
+        emailIndex.put(email);
+        emailIndex.markReady();
+        when(customerDAO.existsPersonWithEmail(email)).thenReturn(true);
+
+        assertThat(underTest.existsPersonWithEmail(email)).isTrue();
+    }
+
+    @Test
+    void existsPersonWithEmailDelegatesUntilIndexIsReady() {
+        String email = "test@mail.by";
+        when(customerDAO.existsPersonWithEmail(email)).thenReturn(true);
+
+        assertThat(underTest.existsPersonWithEmail(email)).isTrue();
+    }
+
+    @Test
+    void selectExistingEmailsOnlyQueriesCandidates() {
+        String taken = "taken@mail.by";
+        emailIndex.put(taken);
+        emailIndex.markReady();
+        when(customerDAO.selectExistingEmails(List.of(taken))).thenReturn(Set.of(taken));
+
+        Set<String> actual = underTest.selectExistingEmails(List.of(taken, "new@mail.by"));
+
+        assertThat(actual).containsExactly(taken);
+    }
+
+    @Test
+    void insertCustomerAddsEmailToIndex() {
+        Customer customer = new Customer("Alex", "test@mail.by", 20);
+
+        underTest.insertCustomer(customer);
+
+        assertThat(emailIndex.mightContain(customer.getEmail())).isTrue();
+        verify(customerDAO).insertCustomer(customer);
+    }
+
+    @Test
+    void failedBatchInsertLeavesEmailsForTheRecheck() {
+        String stored = "stored-elsewhere@mail.by";
+        emailIndex.markReady();
+        List<Customer> customers = List.of(new Customer("Alex", stored, 20));
+        doThrow(new DuplicateKeyException("email")).when(customerDAO).insertCustomers(customers);
+        when(customerDAO.selectExistingEmails(List.of(stored))).thenReturn(Set.of(stored));
+
+        assertThatThrownBy(() -> underTest.insertCustomers(customers)).isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(underTest.selectExistingEmails(List.of(stored))).containsExactly(stored);
+    }
+}
@@ -0,0 +1,97 @@
+package com.springPP.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredCustomerDAOTest {
+
+    @Mock
+    private CustomerDAO delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerDAO underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = MeteredCustomerDAO.wrap(delegate, "jdbc", meterRegistry);
+    }
+
+    @Test
+    void timesSuccessfulCallsAndCountsRows() {
+        Customer customer = new Customer(1L, "Alex", "alex@mail.by", 20);
+        when(delegate.selectCustomerById(1L)).thenReturn(Optional.of(customer));
+        when(delegate.selectCustomersAfterId(0L, 10)).thenReturn(List.of(customer, customer));
+
+        assertThat(underTest.selectCustomerById(1L)).contains(customer);
+        underTest.selectCustomersAfterId(0L, 10);
+
+        assertThat(meterRegistry.get("customer.dao.calls")
+                .tags("backend", "jdbc", "method", "selectCustomerById", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao.rows")
+                .tags("backend", "jdbc", "method", "selectCustomersAfterId")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void countsStreamedRows() {
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "Alex", "alex@mail.by", 20));
+            action.accept(new Customer(2L, "Bob", "bob@mail.by", 30));
+            return null;
+        }).when(delegate).forEachCustomer(any());
+        List<Customer> seen = new ArrayList<>();
+
+        underTest.forEachCustomer(seen::add);
+
+        assertThat(seen).hasSize(2);
+        assertThat(meterRegistry.get("customer.dao.rows")
+                .tags("method", "forEachCustomer")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void timesFailedCallsAndRethrows() {
+        Customer customer = new Customer("Alex", "alex@mail.by", 20);
+        doThrow(new DuplicateKeyException("taken")).when(delegate).insertCustomer(customer);
+
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(meterRegistry.get("customer.dao.calls")
+                .tags("method", "insertCustomer", "outcome", "error", "exception", "DuplicateKeyException")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao.calls")
+                .tags("method", "insertCustomer", "outcome", "success")
+                .timer().count()).isZero();
+    }
+
+    @Test
+    void noRowsSummaryForChecks() {
+        when(delegate.existsPersonWithEmail("alex@mail.by")).thenReturn(true);
+
+        assertThat(underTest.existsPersonWithEmail("alex@mail.by")).isTrue();
+
+        assertThat(meterRegistry.find("customer.dao.rows").tags("method", "existsPersonWithEmail").summary())
+                .isNull();
+    }
+}
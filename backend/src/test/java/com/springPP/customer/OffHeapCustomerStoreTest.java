@@ -0,0 +1,99 @@
+package com.springPP.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapCustomerStoreTest {
+
+    @Test
+    void findsRowsByIdAndEmail() {
+        OffHeapCustomerStore.Builder builder = OffHeapCustomerStore.builder();
+        for (int id = 1; id <= 5000; id++) {
+            builder.add(new Customer(id * 3L, "Customer " + id, "customer-" + id + "@mail.by", 18 + id % 80));
+        }
+        OffHeapCustomerStore underTest = builder.build();
+
+        assertThat(underTest.size()).isEqualTo(5000);
+        int row = underTest.rowOfId(4242 * 3);
+        assertThat(underTest.customerAt(row))
+                .isEqualTo(new Customer(4242 * 3L, "Customer 4242", "customer-4242@mail.by", 18 + 4242 % 80));
+        assertThat(underTest.rowOfEmail("customer-4242@mail.by")).isEqualTo(row);
+        assertThat(underTest.rowOfId(4242 * 3 + 1)).isNegative();
+        assertThat(underTest.rowOfEmail("missing@mail.by")).isNegative();
+    }
+
+    @Test
+    void keepsNonAsciiStrings() {
+        OffHeapCustomerStore underTest = OffHeapCustomerStore.builder()
+                .add(new Customer(1L, "Łukasz Żółć", "łukasz@пример.by", 30))
+                .build();
+
+        assertThat(underTest.customerAt(0).getName()).isEqualTo("Łukasz Żółć");
+        assertThat(underTest.rowOfEmail("łukasz@пример.by")).isZero();
+    }
+
+    @Test
+    void firstRowAfterId() {
+        OffHeapCustomerStore underTest = OffHeapCustomerStore.builder()
+                .add(new Customer(2L, "A", "a@mail.by", 20))
+                .add(new Customer(5L, "B", "b@mail.by", 20))
+                .add(new Customer(9L, "C", "c@mail.by", 20))
+                .build();
+
+        assertThat(underTest.firstRowAfterId(0)).isZero();
+        assertThat(underTest.firstRowAfterId(5)).isEqualTo(2);
+        assertThat(underTest.firstRowAfterId(9)).isEqualTo(3);
+    }
+
+    @Test
+    void withAppendedKeepsExistingRows() {
+        OffHeapCustomerStore underTest = OffHeapCustomerStore.builder()
+                .add(new Customer(1L, "Alex", "alex@mail.by", 20))
+                .add(new Customer(3L, "Bob", "bob@mail.by", 30))
+                .build()
+                .withAppended(List.of(
+                        new Customer(4L, "Carl", "carl@mail.by", 40),
+                        new Customer(9L, "Dan", "dan@mail.by", 50, 2L)));
+
+        assertThat(underTest.size()).isEqualTo(4);
+        assertThat(underTest.highWaterMark()).isEqualTo(9);
+        assertThat(underTest.customerAt(underTest.rowOfId(3))).isEqualTo(new Customer(3L, "Bob", "bob@mail.by", 30));
+        assertThat(underTest.customerAt(underTest.rowOfEmail("dan@mail.by")))
+                .isEqualTo(new Customer(9L, "Dan", "dan@mail.by", 50));
+        assertThat(underTest.versionAt(underTest.rowOfId(9))).isEqualTo(2);
+        assertThat(underTest.versionAt(underTest.rowOfId(3))).isZero();
+    }
+
+    @Test
+    void willThrowWhenAppendedIdsAreNotNewer() {
+        OffHeapCustomerStore underTest = OffHeapCustomerStore.builder()
+                .add(new Customer(5L, "Alex", "alex@mail.by", 20))
+                .build();
+
+        assertThatThrownBy(() -> underTest.withAppended(List.of(new Customer(5L, "Bob", "bob@mail.by", 30))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyStoreFindsNothing() {
+        OffHeapCustomerStore underTest = OffHeapCustomerStore.empty();
+
+        assertThat(underTest.size()).isZero();
+        assertThat(underTest.rowOfId(1)).isNegative();
+        assertThat(underTest.rowOfEmail("a@mail.by")).isNegative();
+    }
+
+    @Test
+    void willThrowWhenIdsAreNotAscending() {
+        OffHeapCustomerStore.Builder builder = OffHeapCustomerStore.builder()
+                .add(new Customer(2L, "A", "a@mail.by", 20));
+
+        assertThatThrownBy(() -> builder.add(new Customer(1L, "B", "b@mail.by", 20)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("customer ids must be ascending, got 1 after 2");
+    }
+}
@@ -0,0 +1,135 @@
+package com.springPP.customer;
+
+import com.springPP.exception.DuplicateResourceException;
+import com.springPP.exception.NoCustomerDataEditedException;
+import com.springPP.exception.NoCustomerException;
+import com.springPP.exception.ResourceNotFound;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    @Mock
+    private ReactiveCustomerDAO customerDAO;
+    private ReactiveCustomerService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDAO);
+    }
+
+    @Test
+    void getAllCustomers() {
+        Customer customer = new Customer(1L, "Alex", "test@mail.by", 20);
+        when(customerDAO.selectAllCustomers()).thenReturn(Flux.just(customer));
+
+        StepVerifier.create(underTest.getAllCustomers())
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    void willThrowWhenGetCustomerReturnsEmpty() {
+        long id = 10;
+        when(customerDAO.selectCustomerById(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(underTest.getCustomer(id))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(ResourceNotFound.class)
+                        .hasMessage("Customer with id " + id + " not found"))
+                .verify();
+    }
+
+    @Test
+    void addCustomer() {
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", "test@mail.by", 20);
+        when(customerDAO.insertCustomerIfEmailAbsent(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(underTest.addCustomer(request)).verifyComplete();
+
+        ArgumentCaptor<Customer> customerCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).insertCustomerIfEmailAbsent(customerCaptor.capture());
+        assertThat(customerCaptor.getValue().getEmail()).isEqualTo(request.email());
+    }
+
+    @Test
+    void willThrowWhenEmailExistWhileAddingCustomer() {
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", "test@mail.by", 20);
+        when(customerDAO.insertCustomerIfEmailAbsent(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(underTest.addCustomer(request))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DuplicateResourceException.class)
+                        .hasMessage("Customer with email test@mail.by already exists"))
+                .verify();
+    }
+
+    @Test
+    void willThrowWhenIdDoesNotExistInDeleteCustomerById() {
+        long id = -1;
+        when(customerDAO.deleteCustomerByIdReturning(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(underTest.deleteCustomerById(id))
+                .expectError(NoCustomerException.class)
+                .verify();
+    }
+
+    @Test
+    void updateCustomer() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Mono.just(new Customer(id, "Bob", "test@mail.by", 20)));
+
+        StepVerifier.create(underTest.updateCustomer(id, new CustomerEditRequest("Bob", null, null)))
+                .verifyComplete();
+        verify(customerDAO, never()).existsCustomerWithId(any());
+    }
+
+    @Test
+    void willThrowWhenTryingUpdatingEmailAlreadyTaken() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any()))
+                .thenReturn(Mono.error(new DuplicateKeyException("customer_email_key")));
+
+        StepVerifier.create(underTest.updateCustomer(id, new CustomerEditRequest(null, "taken@mail.by", null)))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DuplicateResourceException.class)
+                        .hasMessage("email already taken"))
+                .verify();
+    }
+
+    @Test
+    void willThrowWhenCustomerHasNoChanges() {
+        long id = 1;
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Mono.empty());
+        when(customerDAO.existsCustomerWithId(id)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(underTest.updateCustomer(id, new CustomerEditRequest("Alex", null, null)))
+                .expectError(NoCustomerDataEditedException.class)
+                .verify();
+    }
+
+    @Test
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        long id = -1;
+        when(customerDAO.updateCustomerIfChanged(any())).thenReturn(Mono.empty());
+        when(customerDAO.existsCustomerWithId(id)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(underTest.updateCustomer(id, new CustomerEditRequest("Alex", null, null)))
+                .expectError(ResourceNotFound.class)
+                .verify();
+    }
+}
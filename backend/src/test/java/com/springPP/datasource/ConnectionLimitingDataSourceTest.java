@@ -0,0 +1,91 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    private ConnectionLimitingDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ConnectionLimitingDataSource(dataSource, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void closingConnectionReleasesPermitOnce() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        Connection first = underTest.getConnection();
+        underTest.getConnection();
+        assertThat(underTest.availablePermits()).isZero();
+
+        first.close();
+        first.close();
+
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void willThrowWhenNoPermitIsAvailable() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        underTest.getConnection();
+        underTest.getConnection();
+
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("no connection permit available within 50 ms");
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    @Test
+    void releasesPermitWhenDelegateFails() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLException.class)
+                .hasMessage("pool exhausted");
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void delegatesCallsToTargetConnection() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        Connection limited = underTest.getConnection();
+
+        assertThat(limited.getAutoCommit()).isTrue();
+        assertThat(limited.isWrapperFor(Connection.class)).isTrue();
+    }
+
+    @Test
+    void closeClosesThePoolUnderneath() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+
+        new ConnectionLimitingDataSource(pool, 2, Duration.ofSeconds(1)).close();
+
+        verify(pool).close();
+    }
+}
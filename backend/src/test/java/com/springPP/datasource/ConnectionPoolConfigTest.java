@@ -0,0 +1,48 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolConfigTest {
+
+    @Test
+    void poolSizeFollowsCoresWithinConnectionBudget() {
+        assertThat(ConnectionPoolConfig.poolSize(1, 2, 40)).isEqualTo(3);
+        assertThat(ConnectionPoolConfig.poolSize(8, 2, 40)).isEqualTo(17);
+        assertThat(ConnectionPoolConfig.poolSize(32, 2, 40)).isEqualTo(40);
+        assertThat(ConnectionPoolConfig.poolSize(4, 2, 1)).isEqualTo(2);
+    }
+
+    @Test
+    void sizesFixedPoolFromCores() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("customer.datasource.pool.connections-per-core", "2")
+                .withProperty("customer.datasource.pool.max-connections", "1000");
+        try (HikariDataSource hikariDataSource = new HikariDataSource()) {
+            ConnectionPoolConfig.size(hikariDataSource, environment);
+
+            int expected = Runtime.getRuntime().availableProcessors() * 2 + 1;
+            assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(expected);
+            assertThat(hikariDataSource.getMinimumIdle()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void explicitMaximumPoolSizeWins() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "20")
+                .withProperty("customer.datasource.pool.connections-per-core", "2")
+                .withProperty("customer.datasource.pool.max-connections", "40");
+        try (HikariDataSource hikariDataSource = new HikariDataSource()) {
+            // as bound by Boot from the property
+            hikariDataSource.setMaximumPoolSize(20);
+
+            ConnectionPoolConfig.size(hikariDataSource, environment);
+
+            assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(20);
+        }
+    }
+}
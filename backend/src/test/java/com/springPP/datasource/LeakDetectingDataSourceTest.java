@@ -0,0 +1,69 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, OutputCaptureExtension.class})
+class LeakDetectingDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+
+    @Test
+    void reportsLeakOnceNamingBorrowerAndItsReturn(CapturedOutput output) throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        LeakDetectingDataSource underTest = new LeakDetectingDataSource(dataSource, Duration.ofMillis(20));
+
+        Connection leaked = underTest.getConnection();
+        Thread.sleep(50);
+        underTest.sweep();
+        underTest.sweep();
+        leaked.close();
+
+        assertThat(output.getOut().split("apparent connection leak", -1)).hasSize(2);
+        assertThat(output).contains("borrowed by LeakDetectingDataSourceTest.reportsLeakOnceNamingBorrowerAndItsReturn");
+        assertThat(output).contains("leaked connection borrowed by LeakDetectingDataSourceTest"
+                + ".reportsLeakOnceNamingBorrowerAndItsReturn returned after");
+        assertThat(underTest.borrowedConnections()).isZero();
+        verify(connection).close();
+    }
+
+    @Test
+    void staysQuietForConnectionsReturnedInTime(CapturedOutput output) throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        LeakDetectingDataSource underTest = new LeakDetectingDataSource(dataSource, Duration.ofSeconds(30));
+
+        try (Connection borrowed = underTest.getConnection()) {
+            assertThat(underTest.borrowedConnections()).isEqualTo(1);
+        }
+        underTest.sweep();
+
+        assertThat(underTest.borrowedConnections()).isZero();
+        assertThat(output).doesNotContain("leak");
+    }
+
+    @Test
+    void closeClosesThePoolUnderneath() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        LeakDetectingDataSource underTest = new LeakDetectingDataSource(pool, Duration.ofSeconds(30));
+
+        underTest.close();
+
+        verify(pool).close();
+    }
+}
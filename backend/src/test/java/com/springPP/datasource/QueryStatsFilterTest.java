@@ -0,0 +1,80 @@
+package com.springPP.datasource;
+
+import jakarta.servlet.FilterChain;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class QueryStatsFilterTest {
+
+    private final QueryStatsListener listener = new QueryStatsListener();
+    private final QueryStatsFilter underTest = new QueryStatsFilter(20, Duration.ofSeconds(5), 5);
+
+    @Test
+    void flagsRepeatedStatements(CapturedOutput output) throws Exception {
+        underTest.doFilter(request(), new MockHttpServletResponse(),
+                executing(10, "SELECT * FROM customer WHERE id = ?"));
+
+        assertThat(output).contains("query-stats method=GET uri=/api/v1/customers status=200 statements=10");
+        assertThat(output).contains("top_statement_executions=10 top_statement=\"SELECT * FROM customer WHERE id = ?\"");
+        assertThat(output).contains("flags=repeated-statement");
+    }
+
+    @Test
+    void flagsTooManyStatements(CapturedOutput output) throws Exception {
+        FilterChain chain = (request, response) -> {
+            for (int i = 0; i < 21; i++) {
+                execute("SELECT " + i);
+            }
+        };
+
+        underTest.doFilter(request(), new MockHttpServletResponse(), chain);
+
+        assertThat(output).contains("statements=21").contains("flags=too-many-statements");
+    }
+
+    @Test
+    void staysQuietBelowThresholds(CapturedOutput output) throws Exception {
+        underTest.doFilter(request(), new MockHttpServletResponse(),
+                executing(3, "SELECT * FROM customer WHERE id = ?"));
+
+        assertThat(output).doesNotContain("query-stats");
+    }
+
+    @Test
+    void ignoresStatementsOutsideRequests() {
+        execute("SELECT 1");
+
+        assertThat(QueryStats.current()).isNull();
+    }
+
+    private FilterChain executing(int times, String sql) {
+        return (request, response) -> {
+            for (int i = 0; i < times; i++) {
+                execute(sql);
+            }
+        };
+    }
+
+    private void execute(String sql) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/customers");
+    }
+}
@@ -0,0 +1,116 @@
+package com.springPP.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadWriteRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private ReplicaPool replicas;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+    private ReadWriteRoutingDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        ReadWriteRoutingDataSource.unpin();
+    }
+
+    @Test
+    void connectionsOutsideReadOnlyScopesComeFromPrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(underTest.getConnection()).isSameAs(primaryConnection);
+        verifyNoInteractions(replicas);
+    }
+
+    @Test
+    void readOnlyScopesGetReplicaConnection() throws SQLException {
+        when(replicas.connection()).thenReturn(Optional.of(replicaConnection));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(underTest.getConnection()).isSameAs(replicaConnection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void pinnedThreadsReadFromPrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadWriteRoutingDataSource.pinToPrimary();
+
+        assertThat(underTest.getConnection()).isSameAs(primaryConnection);
+        verifyNoInteractions(replicas);
+    }
+
+    @Test
+    void onPrimaryPinsOnlyForTheRead() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection connection = ReadWriteRoutingDataSource.onPrimary(() -> {
+            try {
+                return underTest.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isFalse();
+        verifyNoInteractions(replicas);
+    }
+
+    @Test
+    void onPrimaryKeepsAnOuterPin() {
+        ReadWriteRoutingDataSource.pinToPrimary();
+
+        ReadWriteRoutingDataSource.onPrimary(() -> null);
+
+        assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isTrue();
+    }
+
+    @Test
+    void fallsBackToPrimaryWithoutHealthyReplica() throws SQLException {
+        when(replicas.connection()).thenReturn(Optional.empty());
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(underTest.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void closeClosesThePrimaryButLeavesReplicasToTheirPool() throws Exception {
+        HikariDataSource primaryPool = mock(HikariDataSource.class);
+
+        new ReadWriteRoutingDataSource(primaryPool, replicas).close();
+
+        verify(primaryPool).close();
+        verify(replicas, never()).close();
+    }
+}
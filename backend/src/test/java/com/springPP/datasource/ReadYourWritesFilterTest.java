@@ -0,0 +1,69 @@
+package com.springPP.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final ReadYourWritesFilter underTest = new ReadYourWritesFilter(
+            Duration.ofSeconds(5), Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+    @Test
+    void writesStartWindowAndArePinned() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(pinnedDuring(request("POST"), response)).isTrue();
+
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.getValue()).isEqualTo(Long.toString(NOW + 5000));
+        assertThat(cookie.getMaxAge()).isEqualTo(5);
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void readsWithinWindowArePinned() throws Exception {
+        MockHttpServletRequest request = request("GET");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(NOW + 2000)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(pinnedDuring(request, response)).isTrue();
+        assertThat(response.getCookie(ReadYourWritesFilter.COOKIE)).isNull();
+    }
+
+    @Test
+    void readsWithoutValidWindowAreNotPinned() throws Exception {
+        for (String value : new String[]{Long.toString(NOW - 1), Long.toString(NOW + 60_000), "forever"}) {
+            MockHttpServletRequest request = request("GET");
+            request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, value));
+
+            assertThat(pinnedDuring(request, new MockHttpServletResponse())).as(value).isFalse();
+        }
+        assertThat(pinnedDuring(request("GET"), new MockHttpServletResponse())).isFalse();
+    }
+
+    private boolean pinnedDuring(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean pinned = new AtomicBoolean();
+        FilterChain chain = (req, res) -> pinned.set(ReadWriteRoutingDataSource.isPinnedToPrimary());
+        underTest.doFilter(request, response, chain);
+        return pinned.get();
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/api/v1/customers");
+    }
+}
@@ -0,0 +1,105 @@
+package com.springPP.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaPoolTest {
+
+    @Mock
+    private DataSource first;
+    @Mock
+    private DataSource second;
+    @Mock
+    private Connection firstConnection;
+    @Mock
+    private Connection secondConnection;
+
+    @Test
+    void handsOutHealthyReplicasInTurn() throws SQLException {
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        reportsLag(firstConnection, 0);
+        reportsLag(secondConnection, 0.5);
+        ReplicaPool underTest = pool(first, second);
+
+        assertThat(underTest.connection()).contains(firstConnection);
+        assertThat(underTest.connection()).contains(secondConnection);
+        assertThat(underTest.connection()).contains(firstConnection);
+    }
+
+    @Test
+    void skipsReplicaThatLagsTooFarBehind() throws SQLException {
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        reportsLag(firstConnection, 0);
+        reportsLag(secondConnection, 30);
+        ReplicaPool underTest = pool(first, second);
+
+        assertThat(underTest.connection()).contains(firstConnection);
+        assertThat(underTest.connection()).contains(firstConnection);
+        assertThat(underTest.isHealthy("first")).isTrue();
+        assertThat(underTest.isHealthy("second")).isFalse();
+    }
+
+    @Test
+    void replicaThatFailsToConnectLeavesRotationUntilNextCheck() throws SQLException {
+        when(first.getConnection())
+                .thenReturn(firstConnection)
+                .thenThrow(new SQLException("connection refused"))
+                .thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        reportsLag(firstConnection, 0);
+        reportsLag(secondConnection, 0);
+        ReplicaPool underTest = pool(first, second);
+
+        assertThat(underTest.connection()).contains(secondConnection);
+        assertThat(underTest.connection()).contains(secondConnection);
+        assertThat(underTest.isHealthy("first")).isFalse();
+
+        underTest.checkHealth();
+
+        assertThat(underTest.isHealthy("first")).isTrue();
+    }
+
+    @Test
+    void isEmptyWhenNoReplicaIsHealthy() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLException("connection refused"));
+        ReplicaPool underTest = pool(first);
+
+        assertThat(underTest.connection()).isEmpty();
+        verify(first).getConnection();
+    }
+
+    private ReplicaPool pool(DataSource... replicas) {
+        Map<String, DataSource> named = new LinkedHashMap<>();
+        named.put("first", replicas[0]);
+        if (replicas.length > 1) {
+            named.put("second", replicas[1]);
+        }
+        return new ReplicaPool(named, Duration.ofSeconds(5), Duration.ZERO);
+    }
+
+    private static void reportsLag(Connection connection, double seconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet lag = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lag);
+        when(lag.getDouble(1)).thenReturn(seconds);
+    }
+}
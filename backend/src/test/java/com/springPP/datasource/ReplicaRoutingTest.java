@@ -0,0 +1,144 @@
+package com.springPP.datasource;
+
+import com.springPP.AbsractTestContainers;
+import com.springPP.customer.Customer;
+import com.springPP.customer.CustomerDAO;
+import com.springPP.customer.CustomerFilter;
+import com.springPP.customer.CustomerJDBCDataAccessService;
+import com.springPP.customer.CustomerRowMapper;
+import com.springPP.customer.CustomerSort;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the replica is an independent database rather than a streaming standby, so a row seeded
+// differently on each side shows which one answered
+class ReplicaRoutingTest extends AbsractTestContainers {
+
+    @Container
+    private static final PostgreSQLContainer<?> replicaContainer =
+            new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("springPP-dao-unit-test-replica")
+                    .withUsername("springPP")
+                    .withPassword("password");
+
+    private static final DataSource primary = getDataSource(postgreSQLContainer);
+
+    private String email;
+
+    @BeforeAll
+    static void migrateReplica() {
+        migrate(replicaContainer);
+    }
+
+    @BeforeEach
+    void setUp() {
+        email = "replica-" + UUID.randomUUID() + "@mail.by";
+        String insert = "INSERT INTO customer(name, email, age) VALUES (?, ?, ?)";
+        new JdbcTemplate(primary).update(insert, "primary", email, 30);
+        new JdbcTemplate(getDataSource(replicaContainer)).update(insert, "replica", email, 30);
+    }
+
+    @Test
+    void readsGoToReplicaAndWritesToPrimary() {
+        CustomerDAO underTest = customerDAO(routing(replicas(getDataSource(replicaContainer))));
+        String written = "written-" + UUID.randomUUID() + "@mail.by";
+
+        underTest.insertCustomer(new Customer("Bob", written, 20));
+
+        assertThat(readName(underTest)).isEqualTo("replica");
+        assertThat(underTest.existsPersonWithEmail(written)).isFalse();
+        assertThat(new JdbcTemplate(primary).queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, written)).isEqualTo(1);
+    }
+
+    @Test
+    void readsInWritingTransactionOrPinnedThreadStayOnPrimary() {
+        DataSource dataSource = routing(replicas(getDataSource(replicaContainer)));
+        CustomerDAO underTest = customerDAO(dataSource);
+
+        String inTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .execute(status -> readName(underTest));
+        ReadWriteRoutingDataSource.pinToPrimary();
+        String pinned;
+        try {
+            pinned = readName(underTest);
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+
+        assertThat(inTransaction).isEqualTo("primary");
+        assertThat(pinned).isEqualTo("primary");
+    }
+
+    @Test
+    void unreachableReplicaLeavesRotation() {
+        ReplicaPool replicas = replicas(getDataSource(replicaContainer), unreachable());
+        CustomerDAO underTest = customerDAO(routing(replicas));
+
+        assertThat(replicas.isHealthy("replica-1")).isTrue();
+        assertThat(replicas.isHealthy("replica-2")).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(readName(underTest)).isEqualTo("replica");
+        }
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutHealthyReplica() {
+        CustomerDAO underTest = customerDAO(routing(replicas(unreachable())));
+
+        assertThat(readName(underTest)).isEqualTo("primary");
+    }
+
+    private String readName(CustomerDAO customerDAO) {
+        List<Customer> found = customerDAO.selectCustomers(
+                new CustomerFilter(null, null, null, email), CustomerSort.BY_ID, null, 1);
+        return found.get(0).getName();
+    }
+
+    private static ReplicaPool replicas(DataSource... dataSources) {
+        Map<String, DataSource> named = new LinkedHashMap<>();
+        for (DataSource dataSource : dataSources) {
+            named.put("replica-" + (named.size() + 1), dataSource);
+        }
+        return new ReplicaPool(named, Duration.ofSeconds(5), Duration.ZERO);
+    }
+
+    private static DataSource routing(ReplicaPool replicas) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas));
+    }
+
+    // the DAO behind the same transaction advice Spring would put around it
+    private static CustomerDAO customerDAO(DataSource dataSource) {
+        ProxyFactory proxyFactory = new ProxyFactory(
+                new CustomerJDBCDataAccessService(new JdbcTemplate(dataSource), new CustomerRowMapper()));
+        TransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (CustomerDAO) proxyFactory.getProxy();
+    }
+
+    private static DataSource unreachable() {
+        return new DriverManagerDataSource(
+                "jdbc:postgresql://localhost:1/customer", "springPP", "password");
+    }
+}
@@ -1,20 +1,39 @@
 package com.springPP.journey;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.github.javafaker.Faker;
 import com.springPP.customer.Customer;
+import com.springPP.customer.CustomerBulkDeleteResult;
+import com.springPP.customer.CustomerBulkEditRequest;
+import com.springPP.customer.CustomerBulkUpdateResult;
+import com.springPP.customer.CustomerEditRequest;
+import com.springPP.customer.CustomerPage;
 import com.springPP.customer.CustomerRegistrationRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import reactor.core.publisher.Mono;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class CustomerIntegrationTest {
@@ -23,6 +42,8 @@ public class CustomerIntegrationTest {
     private WebTestClient client;
     @Autowired
     private WebTestClient webTestClient;
+    @LocalServerPort
+    private int port;
 
 
     @Test
@@ -46,16 +67,7 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri("/api/v1/customers")
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         Customer expectedCustomer = new Customer(
                 name, email, age
@@ -69,7 +81,7 @@ public class CustomerIntegrationTest {
 
         // get customer by id
 
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(customer -> customer.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -108,21 +120,12 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri("/api/v1/customers")
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         // make sure that customer is present
 
 
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(customer -> customer.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -169,21 +172,12 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri("/api/v1/customers")
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         // make sure that customer is present
 
 
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(customer -> customer.getEmail().equals(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -226,4 +220,323 @@ public class CustomerIntegrationTest {
 
         assertThat(updatedCustomer).isEqualTo(customer);
     }
+
+    @Test
+    void canExportCustomers() {
+        Faker faker = new Faker();
+        String name = faker.name().fullName();
+        String email = faker.name().lastName() + "-" + UUID.randomUUID() + "@checken123.com";
+        int age = faker.number().numberBetween(1, 100);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                name, email, age
+        );
+        webTestClient.post()
+                .uri("/api/v1/customers")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        List<Customer> exported = webTestClient.get()
+                .uri("/api/v1/customers/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(exported)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .contains(new Customer(name, email, age));
+    }
+
+    @Test
+    void conditionalRequestsUseVersionETags() {
+        Faker faker = new Faker();
+        String email = faker.name().lastName() + "-" + UUID.randomUUID() + "@checken123.com";
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                faker.name().fullName(), email, faker.number().numberBetween(1, 100)
+        );
+        webTestClient.post()
+                .uri("/api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        long id = getAllCustomers().stream()
+                .filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        webTestClient.get()
+                .uri("/api/v1/customers/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"0\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        webTestClient.get()
+                .uri("/api/v1/customers/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.put()
+                .uri("/api/v1/customers/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CustomerEditRequest("Random Bob", null, null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"1\"");
+        webTestClient.put()
+                .uri("/api/v1/customers/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CustomerEditRequest("Lost Update", null, null))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.get()
+                .uri("/api/v1/customers/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Customer.class)
+                .value(customer -> assertThat(customer.getName()).isEqualTo("Random Bob"));
+
+        String exportETag = webTestClient.get()
+                .uri("/api/v1/customers/export")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        webTestClient.get()
+                .uri("/api/v1/customers/export")
+                .header(HttpHeaders.IF_NONE_MATCH, exportETag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        String pageETag = webTestClient.get()
+                .uri("/api/v1/customers?size=100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        webTestClient.get()
+                .uri("/api/v1/customers?size=100")
+                .header(HttpHeaders.IF_NONE_MATCH, pageETag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void canNegotiateBinaryFormatsAndCompression() throws Exception {
+        // enough rows that a page crosses the compression threshold
+        Faker faker = new Faker();
+        List<CustomerRegistrationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(new CustomerRegistrationRequest(
+                    faker.name().fullName(), UUID.randomUUID() + "@checken123.com", 30));
+        }
+        webTestClient.post()
+                .uri("/api/v1/customers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk();
+
+        byte[] smile = webTestClient.get()
+                .uri("/api/v1/customers?size=100")
+                .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-jackson-smile")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        CustomerPage page = new ObjectMapper(new SmileFactory()).readValue(smile, CustomerPage.class);
+        assertThat(page.customers()).isNotEmpty();
+
+        webTestClient.get()
+                .uri("/api/v1/customers?size=100")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR);
+
+        // a plain JDK client, since the reactive one decompresses and drops Content-Encoding
+        HttpResponse<byte[]> gzipped = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/customers?size=100"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).contains("gzip");
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertThat(new ObjectMapper().readValue(in, CustomerPage.class).customers()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void canFilterAndSortCustomers() {
+        String tag = UUID.randomUUID().toString();
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", tag + "-a@checken123.com", 25),
+                new CustomerRegistrationRequest("Bob", tag + "-b@checken123.com", 45),
+                new CustomerRegistrationRequest("Carl", tag + "-c@checken123.com", 35),
+                new CustomerRegistrationRequest("Dan", tag + "-d@checken123.com", 15));
+        webTestClient.post()
+                .uri("/api/v1/customers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk();
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            String nextCursor = cursor;
+            CustomerPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/v1/customers")
+                            .queryParamIfPresent("cursor", Optional.ofNullable(nextCursor))
+                            .queryParam("size", 2)
+                            .queryParam("emailPrefix", tag)
+                            .queryParam("minAge", 20)
+                            .queryParam("sort", "age,desc")
+                            .build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(CustomerPage.class)
+                    .returnResult()
+                    .getResponseBody();
+            page.customers().forEach(customer -> names.add(customer.getName()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(names).containsExactly("Bob", "Carl", "Alex");
+        webTestClient.get()
+                .uri("/api/v1/customers?sort=salary")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void canSearchCustomersByPartialNameAndMistypedEmail() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        String email = "maximilian.searchable." + tag + "@checken123.com";
+        webTestClient.post()
+                .uri("/api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CustomerRegistrationRequest("Maximilian Qz" + tag, email, 33))
+                .exchange()
+                .expectStatus().isOk();
+
+        for (String query : List.of("maxim qz" + tag, "maximillian.searchable." + tag + "@checken.com")) {
+            List<Customer> found = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/api/v1/customers/search").queryParam("q", query).build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(Customer.class)
+                    .returnResult()
+                    .getResponseBody();
+            assertThat(found).first().extracting(Customer::getEmail).isEqualTo(email);
+        }
+
+        webTestClient.get()
+                .uri("/api/v1/customers/search?q=ab")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void canPatchAndDeleteCustomersInBulk() {
+        String tag = UUID.randomUUID().toString();
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", tag + "-a@checken123.com", 25),
+                new CustomerRegistrationRequest("Bob", tag + "-b@checken123.com", 45));
+        webTestClient.post()
+                .uri("/api/v1/customers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk();
+        List<Long> ids = getAllCustomers().stream()
+                .filter(customer -> customer.getEmail().startsWith(tag))
+                .map(Customer::getId)
+                .sorted()
+                .toList();
+        long missing = -1;
+
+        CustomerBulkUpdateResult updated = webTestClient.patch()
+                .uri("/api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(
+                        new CustomerBulkEditRequest(ids.get(0), null, null, 26),
+                        new CustomerBulkEditRequest(ids.get(1), "Bob", null, null),
+                        new CustomerBulkEditRequest(missing, "Carl", null, null)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerBulkUpdateResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(updated).isEqualTo(new CustomerBulkUpdateResult(List.of(ids.get(0)), List.of(ids.get(1)), List.of(missing)));
+        webTestClient.patch()
+                .uri("/api/v1/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new CustomerBulkEditRequest(ids.get(0), null, tag + "-b@checken123.com", null)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+        CustomerBulkDeleteResult deleted = webTestClient.delete()
+                .uri(uriBuilder -> uriBuilder.path("/api/v1/customers")
+                        .queryParam("ids", ids.get(0), missing, ids.get(1))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerBulkDeleteResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(deleted).isEqualTo(new CustomerBulkDeleteResult(List.of(ids.get(0), ids.get(1)), List.of(missing)));
+        webTestClient.get()
+                .uri("/api/v1/customers/{id}", ids.get(0))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private List<Customer> getAllCustomers() {
+        List<Customer> allCustomers = new ArrayList<>();
+        String cursor = null;
+        do {
+            String nextCursor = cursor;
+            CustomerPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/v1/customers")
+                            .queryParamIfPresent("cursor", Optional.ofNullable(nextCursor))
+                            .queryParam("size", 100)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(CustomerPage.class)
+                    .returnResult()
+                    .getResponseBody();
+            allCustomers.addAll(page.customers());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return allCustomers;
+    }
 }